@@ -0,0 +1,25 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.HttpRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+@Configuration
+public class AccessLogConfig {
+    @Bean
+    @ConditionalOnProperty("filmorate.access-log.sample-rate")
+    public Predicate<HttpRequest> requestCondition(@Value("${filmorate.access-log.sample-rate}") double sampleRate) {
+        if (sampleRate <= 0) {
+            return request -> false;
+        }
+        if (sampleRate >= 1) {
+            return request -> true;
+        }
+        return request -> ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
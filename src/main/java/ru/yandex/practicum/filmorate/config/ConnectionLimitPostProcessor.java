@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.ConnectionLimitingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Component
+public class ConnectionLimitPostProcessor implements BeanPostProcessor, EnvironmentAware {
+    private static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(10);
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        int maxConcurrency = environment.getProperty("filmorate.datasource.max-concurrency", Integer.class, 0);
+        if (maxConcurrency > 0 && bean instanceof DataSource dataSource
+                && !(bean instanceof ConnectionLimitingDataSource)) {
+            return new ConnectionLimitingDataSource(dataSource, maxConcurrency, environment.getProperty(
+                    "filmorate.datasource.acquire-timeout", Duration.class, DEFAULT_ACQUIRE_TIMEOUT));
+        }
+        return bean;
+    }
+}
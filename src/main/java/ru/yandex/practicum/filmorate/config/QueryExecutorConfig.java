@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class QueryExecutorConfig {
+    @Bean(destroyMethod = "close")
+    public ExecutorService queryExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        Thread.Builder threads = virtual ? Thread.ofVirtual() : Thread.ofPlatform().daemon();
+        return Executors.newThreadPerTaskExecutor(threads
+                .name("query-", 0)
+                .factory());
+    }
+}
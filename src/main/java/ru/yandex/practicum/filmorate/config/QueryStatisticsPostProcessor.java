@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.QueryStatisticsDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Component
+public class QueryStatisticsPostProcessor implements BeanPostProcessor, EnvironmentAware {
+    private static final Duration DEFAULT_SLOW_THRESHOLD = Duration.ofMillis(200);
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof QueryStatisticsDataSource)) {
+            return new QueryStatisticsDataSource(dataSource, environment.getProperty(
+                    "filmorate.query-stats.slow-threshold", Duration.class, DEFAULT_SLOW_THRESHOLD));
+        }
+        return bean;
+    }
+}
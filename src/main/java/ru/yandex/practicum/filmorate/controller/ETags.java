@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import ru.yandex.practicum.filmorate.model.EntityVersion;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+final class ETags {
+    private static final int DIGEST_BYTES = 16;
+
+    private ETags() {
+    }
+
+    static String of(EntityVersion version) {
+        return "\"" + version.id() + "-" + version.version() + "\"";
+    }
+
+    static String of(List<EntityVersion> versions) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Long.BYTES);
+        for (EntityVersion version : versions) {
+            buffer.clear();
+            buffer.putLong(version.id()).putLong(version.version());
+            digest.update(buffer.array());
+        }
+        byte[] hash = digest.digest();
+        return "\"" + versions.size() + "-" + HexFormat.of().formatHex(hash, 0, DIGEST_BYTES) + "\"";
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
+import ru.yandex.practicum.filmorate.model.ExportFormat;
+import ru.yandex.practicum.filmorate.model.ExportTable;
+import ru.yandex.practicum.filmorate.service.ExportService;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+    private final ExportService service;
+
+    @GetMapping("/{table}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String table,
+                                                        @RequestParam(defaultValue = "ndjson") String format,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportTable exportTable = parse(ExportTable.class, "table", table);
+        ExportFormat exportFormat = parse(ExportFormat.class, "format", format);
+        List<Long> key = service.parseAfter(exportTable, after);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                        + table.toLowerCase(Locale.ROOT) + "." + exportFormat.getExtension() + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(outputStream -> {
+            if (gzip) {
+                try (OutputStream output = new GZIPOutputStream(outputStream)) {
+                    service.export(exportTable, exportFormat, key, output);
+                }
+            } else {
+                service.export(exportTable, exportFormat, key, outputStream);
+            }
+        });
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String parameter, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ParameterNotValidException(parameter, "неизвестное значение " + value);
+        }
+    }
+}
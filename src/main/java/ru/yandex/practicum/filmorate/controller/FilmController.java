@@ -1,38 +1,73 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLikesCount;
+import ru.yandex.practicum.filmorate.model.FilmSearchField;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.InputStream;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/films")
 public class FilmController {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+    private static final int MAX_SEARCH_LIMIT = 100;
+
     private final FilmService service;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public List<Film> findAll() {
-        return service.findAll();
+    public List<Film> findAll(@RequestParam(required = false) Long after,
+                              @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return service.findAll();
+        }
+        return service.findPage(
+                after == null ? 0 : after,
+                limit == null ? DEFAULT_PAGE_LIMIT : limit
+        );
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody stream() {
+        return JsonArrayStream.of(objectMapper, service::streamAll);
+    }
 
     @PostMapping
     public Film create(@Valid @RequestBody Film film) {
         return service.create(film);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkImportResult importAll(InputStream input) {
+        return service.importFilms(input);
+    }
+
     @PutMapping
     public Film update(@Valid @Validated @RequestBody Film newFilm) {
         return service.update(newFilm);
     }
 
     @GetMapping("/{id}")
-    public Film findById(@PathVariable long id) {
+    public Film findById(@PathVariable long id, WebRequest request) {
+        if (request.checkNotModified(ETags.of(service.findVersion(id)))) {
+            return null;
+        }
         return service.findById(id);
     }
 
@@ -42,15 +77,52 @@ public class FilmController {
         return service.addLike(id, userId);
     }
 
+    @PutMapping(value = "/{id}/like/{userId}", params = "countOnly=true")
+    public FilmLikesCount addLikeGetCount(@PathVariable long id,
+                                          @PathVariable long userId) {
+        return service.addLikeGetCount(id, userId);
+    }
+
     @DeleteMapping("/{id}/like/{userId}")
     public Film deleteLike(@PathVariable long id,
                            @PathVariable long userId) {
         return service.deleteLike(id, userId);
     }
 
+    @DeleteMapping(value = "/{id}/like/{userId}", params = "countOnly=true")
+    public FilmLikesCount deleteLikeGetCount(@PathVariable long id,
+                                             @PathVariable long userId) {
+        return service.deleteLikeGetCount(id, userId);
+    }
+
     @GetMapping("/popular")
     public List<Film> getPopular(
-            @RequestParam(defaultValue = "10") long count) {
-        return service.getPopular(count);
+            @RequestParam(defaultValue = "10") long count,
+            @RequestParam(required = false) Integer genreId,
+            @RequestParam(required = false) Integer year,
+            WebRequest request) {
+        if (request.checkNotModified(ETags.of(service.findPopularVersions(count, genreId, year)))) {
+            return null;
+        }
+        return service.getPopular(count, genreId, year);
+    }
+
+    @GetMapping("/search")
+    public List<Film> search(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "title,description") String by,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (limit > MAX_SEARCH_LIMIT) {
+            throw new ParameterNotValidException("limit", "должен быть не больше " + MAX_SEARCH_LIMIT);
+        }
+        Set<FilmSearchField> fields = EnumSet.noneOf(FilmSearchField.class);
+        for (String field : by.split(",")) {
+            try {
+                fields.add(FilmSearchField.valueOf(field.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new ParameterNotValidException("by", "неизвестное значение " + field);
+            }
+        }
+        return service.search(query, fields, limit);
     }
 }
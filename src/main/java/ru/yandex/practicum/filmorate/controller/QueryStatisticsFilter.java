@@ -0,0 +1,36 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.yandex.practicum.filmorate.repository.QueryStatistics;
+
+import java.io.IOException;
+
+@Slf4j
+@Component
+public class QueryStatisticsFilter extends OncePerRequestFilter {
+    private final int requestBudget;
+
+    public QueryStatisticsFilter(@Value("${filmorate.query-stats.request-budget:20}") int requestBudget) {
+        this.requestBudget = requestBudget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try (QueryStatistics statistics = QueryStatistics.start()) {
+            chain.doFilter(request, response);
+            if (requestBudget > 0 && statistics.count() > requestBudget) {
+                log.warn("{} {} выполнил {} запросов к базе данных ({} мс) при бюджете {}",
+                        request.getMethod(), request.getRequestURI(), statistics.count(),
+                        statistics.time().toMillis(), requestBudget);
+            }
+        }
+    }
+}
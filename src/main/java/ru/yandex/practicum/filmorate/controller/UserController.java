@@ -1,22 +1,47 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.UserService;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/users")
 public class UserController {
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+
     private final UserService service;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
-    public List<User> findAll() {
-        return service.findAll();
+    public List<User> findAll(@RequestParam(required = false) Long after,
+                              @RequestParam(required = false) Integer limit,
+                              @RequestParam(defaultValue = "true") boolean withFriends) {
+        if (after == null && limit == null) {
+            return service.findAll(withFriends);
+        }
+        return service.findPage(
+                after == null ? 0 : after,
+                limit == null ? DEFAULT_PAGE_LIMIT : limit,
+                withFriends
+        );
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody stream(@RequestParam(defaultValue = "true") boolean withFriends) {
+        return JsonArrayStream.<User>of(objectMapper, consumer -> service.streamAll(withFriends, consumer));
     }
 
     @PostMapping
@@ -24,6 +49,11 @@ public class UserController {
         return service.create(user);
     }
 
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public BulkImportResult importAll(InputStream input) {
+        return service.importUsers(input);
+    }
+
     @PutMapping
     public User update(@Valid @RequestBody User newUser) {
         return service.update(newUser);
@@ -42,7 +72,10 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> findAllFriends(@PathVariable long id) {
+    public List<User> findAllFriends(@PathVariable long id, WebRequest request) {
+        if (request.checkNotModified(ETags.of(service.findFriendsVersions(id)))) {
+            return null;
+        }
         return service.findAllFriends(id);
     }
 
@@ -51,4 +84,16 @@ public class UserController {
                                         @PathVariable long otherId) {
         return service.findCommonFriends(id, otherId);
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<FriendSuggestion> findFriendSuggestions(@PathVariable long id,
+                                                        @RequestParam(defaultValue = "10") int limit) {
+        return service.findFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> findRecommendations(@PathVariable long id,
+                                          @RequestParam(defaultValue = "10") int limit) {
+        return service.findRecommendations(id, limit);
+    }
 }
@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.model;
+
+public record EntityVersion(long id, long version) {
+}
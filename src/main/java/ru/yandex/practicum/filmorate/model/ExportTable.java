@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportTable {
+    FILMS(1),
+    LIKES(2),
+    FRIENDS(2);
+
+    private final int keyColumns;
+}
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -43,6 +44,9 @@ public class Film {
     @Builder.Default
     private Set<Genre> genres = new LinkedHashSet<>();
 
+    @JsonIgnore
+    private long version;
+
     @JsonProperty("duration")
     @Positive
     public long getDuration() {
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PastOrPresent;
@@ -32,6 +33,9 @@ public class User {
 
     private Set<Friend> friends;
 
+    @JsonIgnore
+    private long version;
+
     public void addFriend(Friend friend) {
         friends.add(friend);
     }
@@ -0,0 +1,10 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import ru.yandex.practicum.filmorate.model.ExportTable;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface ExportRepository {
+    void export(ExportTable table, List<Long> after, Consumer<List<String>> columns, Consumer<Object[]> rows);
+}
@@ -2,8 +2,9 @@ package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.model.FilmGenre;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface FilmGenreRepository {
-    List<FilmGenre> findGenresOfFilms(String filmsId);
+    List<FilmGenre> findGenresOfFilms(Collection<Long> filmIds);
 }
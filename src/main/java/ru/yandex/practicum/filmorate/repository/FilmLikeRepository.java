@@ -2,8 +2,16 @@ package ru.yandex.practicum.filmorate.repository;
 
 import ru.yandex.practicum.filmorate.model.FilmLike;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface FilmLikeRepository {
-    List<FilmLike> findLikesOfFilms(String filmsId);
+    List<FilmLike> findLikesOfFilms(Collection<Long> filmIds);
+
+    int[] saveLikes(List<FilmLike> likes);
+
+    int[] deleteLikes(List<FilmLike> likes);
+
+    void changeLikesCounts(Map<Long, Long> deltas, Map<Long, Long> changes);
 }
@@ -1,21 +1,47 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import ru.yandex.practicum.filmorate.model.EntityVersion;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearchField;
 
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmRepository {
     List<Film> findAll();
 
+    List<Film> findPage(long after, int limit);
+
+    void streamAll(Consumer<Film> consumer);
+
     Film findById(long id);
 
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film newFilm);
 
     Film addLike(long id, long userId);
 
+    long addLikeGetCount(long id, long userId);
+
     Film deleteLike(long id, long userId);
 
+    long deleteLikeGetCount(long id, long userId);
+
     List<Film> getPopular(long count);
+
+    List<Film> getPopular(long count, Integer genreId, Integer year);
+
+    EntityVersion findVersion(long id);
+
+    List<EntityVersion> findPopularVersions(long count, Integer genreId, Integer year);
+
+    int reconcileLikesCounts();
+
+    List<Film> findRecommendations(long userId, int limit);
+
+    List<Film> search(String query, Set<FilmSearchField> by, int limit);
 }
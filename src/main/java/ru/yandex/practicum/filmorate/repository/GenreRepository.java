@@ -5,6 +5,8 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import java.util.List;
 
 public interface GenreRepository {
+    void refresh();
+
     List<Genre> findAll();
 
     Genre findById(int id);
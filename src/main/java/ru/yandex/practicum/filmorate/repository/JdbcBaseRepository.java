@@ -1,63 +1,160 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import ru.yandex.practicum.filmorate.exception.InternalServerException;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 @RequiredArgsConstructor
 public class JdbcBaseRepository<T> {
+    private static final int[] IN_CHUNK_SIZES = {1, 10, 100, 1000};
+    private static final String[] IN_CHUNK_PLACEHOLDERS = Arrays.stream(IN_CHUNK_SIZES)
+            .mapToObj(size -> String.join(", ", Collections.nCopies(size, "?")))
+            .toArray(String[]::new);
+
+    private static final String QUERY_SUFFIX = "_QUERY";
+    private static final String OTHER_QUERY = "other";
+
     protected final JdbcTemplate jdbc;
     protected final RowMapper<T> mapper;
+    private final Map<String, String> queryNames = queryNames(getClass());
+    private final Map<QueryKey, QueryMeters> queryMeters = new ConcurrentHashMap<>();
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+    @Autowired(required = false)
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     protected Optional<T> findOne(String query, Object... params) {
-        try {
-            T result = jdbc.queryForObject(query, mapper, params);
-            return Optional.ofNullable(result);
-        } catch (EmptyResultDataAccessException ignored) {
-            return Optional.empty();
-        }
+        return measure("findOne", query, () -> {
+            try {
+                T result = jdbc.queryForObject(query, mapper, params);
+                return Optional.ofNullable(result);
+            } catch (EmptyResultDataAccessException ignored) {
+                return Optional.empty();
+            }
+        }, result -> result.isPresent() ? 1 : 0);
     }
 
     protected List<T> findMany(String query, Object... params) {
-        return jdbc.query(query, mapper, params);
+        return findMany(query, mapper, params);
+    }
+
+    protected <R> List<R> findMany(String query, RowMapper<R> rowMapper, Object... params) {
+        return measure("findMany", query, () -> jdbc.query(query, rowMapper, params), List::size);
+    }
+
+    protected List<T> findManyByIds(String query, Collection<Long> ids) {
+        return findManyByIds(query, ids, mapper);
+    }
+
+    protected <R> List<R> findManyByIds(String query, Collection<Long> ids, RowMapper<R> rowMapper) {
+        return measure("findManyByIds", query, () -> queryByIds(query, ids, rowMapper), List::size);
+    }
+
+    private <R> List<R> queryByIds(String query, Collection<Long> ids, RowMapper<R> rowMapper) {
+        List<R> result = new ArrayList<>();
+        Iterator<Long> iterator = ids.iterator();
+        int remaining = ids.size();
+        while (remaining > 0) {
+            int chunk = inChunk(remaining);
+            int chunkSize = IN_CHUNK_SIZES[chunk];
+            Object[] params = new Object[chunkSize];
+            int count = 0;
+            while (count < chunkSize && iterator.hasNext()) {
+                params[count++] = iterator.next();
+            }
+            Arrays.fill(params, count, chunkSize, params[count - 1]);
+            result.addAll(jdbc.query(
+                    String.format(query, IN_CHUNK_PLACEHOLDERS[chunk]),
+                    rowMapper,
+                    params
+            ));
+            remaining -= count;
+        }
+        return result;
+    }
+
+    protected void findEach(String query, int batchSize, Consumer<List<T>> batchConsumer, Object... params) {
+        CallbackTimer callbacks = new CallbackTimer();
+        BatchingRowCallbackHandler handler = new BatchingRowCallbackHandler(batchSize, callbacks.wrap(batchConsumer));
+        stream("findEach", query, batchSize, params, rs -> {
+            while (rs.next()) {
+                handler.processRow(rs);
+            }
+            handler.flush();
+            return handler.rows;
+        }, rows -> rows, callbacks);
+    }
+
+    protected <R> R stream(String operation,
+                           String query,
+                           int fetchSize,
+                           Object[] params,
+                           ResultSetExtractor<R> extractor,
+                           ToIntFunction<R> rows,
+                           CallbackTimer callbacks) {
+        return measure(operation, query, () -> StreamingQueries.query(jdbc, query, fetchSize, params, extractor),
+                rows, callbacks);
     }
 
     protected boolean delete(String query, Object... params) {
-        int rowsDeleted = jdbc.update(query, params);
+        int rowsDeleted = measure("delete", query, () -> jdbc.update(query, params), rows -> rows);
         return rowsDeleted > 0;
     }
 
     protected void update(String query, Object... params) {
-        int rowsUpdated = jdbc.update(query, params);
-        if (rowsUpdated == 0) {
+        if (updateRows(query, params) == 0) {
             throw new InternalServerException("Не удалось обновить данные");
         }
     }
 
+    protected int updateRows(String query, Object... params) {
+        return measure("update", query, () -> jdbc.update(query, params), rows -> rows);
+    }
+
+    protected int[] batchUpdate(String query, List<Object[]> batchArgs) {
+        if (batchArgs.isEmpty()) {
+            return new int[0];
+        }
+        return measure("batchUpdate", query, () -> jdbc.batchUpdate(query, batchArgs),
+                rows -> Arrays.stream(rows).map(count -> Math.max(count, 0)).sum());
+    }
+
     protected long insertGetKey(String query, Object... params) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
-        jdbc.update(connection -> {
+        measure("insertGetKey", query, () -> jdbc.update(connection -> {
             PreparedStatement ps = connection
                     .prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
-            for (int idx = 0; idx < params.length; idx++) {
-                if (params[idx] != null) {
-                    ps.setObject(idx + 1, params[idx]);
-                } else {
-                    ps.setNull(idx + 1, Types.OTHER);
-                }
-            }
+            setParameters(ps, params);
             return ps;
-        }, keyHolder);
+        }, keyHolder), rows -> rows);
 
         Long id = keyHolder.getKeyAs(Long.class);
 
@@ -67,10 +164,171 @@ public class JdbcBaseRepository<T> {
         throw new InternalServerException("Не удалось сохранить данные");
     }
 
+    protected List<Long> batchInsertGetKeys(String query, List<Object[]> batchArgs) {
+        if (batchArgs.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = measure("batchInsertGetKeys", query, () -> jdbc.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                for (Object[] params : batchArgs) {
+                    setParameters(ps, params);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Long> keys = new ArrayList<>(batchArgs.size());
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        keys.add(rs.getLong(1));
+                    }
+                }
+                return keys;
+            }
+        }), keys -> keys == null ? 0 : keys.size());
+
+        if (ids != null && ids.size() == batchArgs.size()) {
+            return ids;
+        }
+        throw new InternalServerException("Не удалось сохранить данные");
+    }
+
     protected void insert(String query, Object... params) {
-        int rowsInserted = jdbc.update(query, params);
+        int rowsInserted = measure("insert", query, () -> jdbc.update(query, params), rows -> rows);
         if (rowsInserted == 0) {
             throw new InternalServerException("Не удалось сохранить данные");
         }
     }
+
+    private <R> R measure(String operation, String query, Supplier<R> call, ToIntFunction<R> rows) {
+        return measure(operation, query, call, rows, null);
+    }
+
+    private <R> R measure(String operation,
+                          String query,
+                          Supplier<R> call,
+                          ToIntFunction<R> rows,
+                          CallbackTimer callbacks) {
+        QueryMeters meters = queryMeters.computeIfAbsent(new QueryKey(operation, query), this::registerMeters);
+        long start = System.nanoTime();
+        try {
+            R result = call.get();
+            meters.rows().record(rows.applyAsInt(result));
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (callbacks != null) {
+                elapsed -= callbacks.nanos;
+            }
+            meters.timer().record(Math.max(0, elapsed), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private QueryMeters registerMeters(QueryKey key) {
+        String repository = getClass().getSimpleName();
+        String query = queryNames.getOrDefault(key.query(), OTHER_QUERY);
+        return new QueryMeters(
+                Timer.builder("filmorate.repository.query")
+                        .description("Время выполнения запросов репозиториев")
+                        .tag("repository", repository)
+                        .tag("operation", key.operation())
+                        .tag("query", query)
+                        .register(meterRegistry),
+                DistributionSummary.builder("filmorate.repository.rows")
+                        .description("Количество строк, прочитанных или изменённых запросом")
+                        .baseUnit("rows")
+                        .tag("repository", repository)
+                        .tag("operation", key.operation())
+                        .tag("query", query)
+                        .register(meterRegistry)
+        );
+    }
+
+    private static Map<String, String> queryNames(Class<?> type) {
+        Map<String, String> names = new HashMap<>();
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (field.getType() == String.class && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)
+                        && field.getName().endsWith(QUERY_SUFFIX)) {
+                    try {
+                        field.setAccessible(true);
+                        String name = field.getName();
+                        names.putIfAbsent((String) field.get(null),
+                                name.substring(0, name.length() - QUERY_SUFFIX.length()).toLowerCase(Locale.ROOT));
+                    } catch (IllegalAccessException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }
+        }
+        return names;
+    }
+
+    private static void setParameters(PreparedStatement ps, Object[] params) throws SQLException {
+        for (int idx = 0; idx < params.length; idx++) {
+            if (params[idx] != null) {
+                ps.setObject(idx + 1, params[idx]);
+            } else {
+                ps.setNull(idx + 1, Types.OTHER);
+            }
+        }
+    }
+
+    private static int inChunk(int remaining) {
+        for (int chunk = 0; chunk < IN_CHUNK_SIZES.length; chunk++) {
+            if (remaining <= IN_CHUNK_SIZES[chunk]) {
+                return chunk;
+            }
+        }
+        return IN_CHUNK_SIZES.length - 1;
+    }
+
+    protected static final class CallbackTimer {
+        private long nanos;
+
+        public <V> Consumer<V> wrap(Consumer<V> consumer) {
+            return value -> {
+                long start = System.nanoTime();
+                try {
+                    consumer.accept(value);
+                } finally {
+                    nanos += System.nanoTime() - start;
+                }
+            };
+        }
+    }
+
+    private record QueryKey(String operation, String query) {
+    }
+
+    private record QueryMeters(Timer timer, DistributionSummary rows) {
+    }
+
+    private class BatchingRowCallbackHandler implements RowCallbackHandler {
+        private final int batchSize;
+        private final Consumer<List<T>> batchConsumer;
+        private List<T> batch;
+        private int rows;
+
+        BatchingRowCallbackHandler(int batchSize, Consumer<List<T>> batchConsumer) {
+            this.batchSize = batchSize;
+            this.batchConsumer = batchConsumer;
+            this.batch = new ArrayList<>(batchSize);
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            batch.add(mapper.mapRow(rs, rs.getRow()));
+            rows++;
+            if (batch.size() == batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.ExportTable;
+
+import java.sql.Date;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+public class JdbcExportRepository extends JdbcBaseRepository<Object[]> implements ExportRepository {
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final String FILMS_EXPORT_QUERY = """
+            SELECT "film_id", "name", "description", "release_date", "duration", "mpa_id"
+            FROM "films"
+            WHERE "film_id" > ?
+            ORDER BY "film_id";
+            """;
+    private static final String LIKES_EXPORT_QUERY = """
+            SELECT "film_id", "user_id"
+            FROM "likes"
+            WHERE "film_id" > ? OR ("film_id" = ? AND "user_id" > ?)
+            ORDER BY "film_id", "user_id";
+            """;
+    private static final String LIKES_EXPORT_AFTER_FILM_QUERY = """
+            SELECT "film_id", "user_id"
+            FROM "likes"
+            WHERE "film_id" > ?
+            ORDER BY "film_id", "user_id";
+            """;
+    private static final String FRIENDS_EXPORT_AFTER_USER_QUERY = """
+            SELECT "user_id", "friend_id", "friendship_status_id"
+            FROM "friends"
+            WHERE "user_id" > ?
+            ORDER BY "user_id", "friend_id";
+            """;
+    private static final String FRIENDS_EXPORT_QUERY = """
+            SELECT "user_id", "friend_id", "friendship_status_id"
+            FROM "friends"
+            WHERE "user_id" > ? OR ("user_id" = ? AND "friend_id" > ?)
+            ORDER BY "user_id", "friend_id";
+            """;
+
+    private static final RowMapper<Object[]> ROW_MAPPER = (rs, rowNum) -> {
+        int columnCount = rs.getMetaData().getColumnCount();
+        Object[] values = new Object[columnCount];
+        for (int idx = 0; idx < columnCount; idx++) {
+            Object value = rs.getObject(idx + 1);
+            values[idx] = value instanceof Date date ? date.toLocalDate() : value;
+        }
+        return values;
+    };
+
+    public JdbcExportRepository(JdbcTemplate jdbc) {
+        super(jdbc, ROW_MAPPER);
+    }
+
+    @Override
+    public void export(ExportTable table, List<Long> after, Consumer<List<String>> columns, Consumer<Object[]> rows) {
+        log.info("Выгрузка таблицы {} после ключа {}", table, after);
+        boolean fullKey = after.size() == 2;
+        String query = switch (table) {
+            case FILMS -> FILMS_EXPORT_QUERY;
+            case LIKES -> fullKey ? LIKES_EXPORT_QUERY : LIKES_EXPORT_AFTER_FILM_QUERY;
+            case FRIENDS -> fullKey ? FRIENDS_EXPORT_QUERY : FRIENDS_EXPORT_AFTER_USER_QUERY;
+        };
+        Object[] params;
+        if (after.isEmpty()) {
+            params = new Object[]{Long.MIN_VALUE};
+        } else if (fullKey) {
+            params = new Object[]{after.get(0), after.get(0), after.get(1)};
+        } else {
+            params = new Object[]{after.get(0)};
+        }
+
+        CallbackTimer callbacks = new CallbackTimer();
+        Consumer<List<String>> timedColumns = callbacks.wrap(columns);
+        Consumer<Object[]> timedRows = callbacks.wrap(rows);
+        stream("export", query, EXPORT_FETCH_SIZE, params, rs -> {
+            timedColumns.accept(columnLabels(rs.getMetaData()));
+            int count = 0;
+            while (rs.next()) {
+                timedRows.accept(mapper.mapRow(rs, ++count));
+            }
+            return count;
+        }, count -> count, callbacks);
+    }
+
+    private static List<String> columnLabels(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        List<String> labels = new ArrayList<>(columnCount);
+        for (int idx = 1; idx <= columnCount; idx++) {
+            labels.add(metaData.getColumnLabel(idx));
+        }
+        return labels;
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.FilmGenre;
 
+import java.util.Collection;
 import java.util.List;
 
 @Slf4j
@@ -25,9 +26,10 @@ public class JdbcFilmGenreRepository extends JdbcBaseRepository<FilmGenre> imple
     }
 
     @Override
-    public List<FilmGenre> findGenresOfFilms(String filmsId) {
-        return findMany(
-                String.format(GENRES_FIND_BY_FILM_ID_QUERY, filmsId)
+    public List<FilmGenre> findGenresOfFilms(Collection<Long> filmIds) {
+        return findManyByIds(
+                GENRES_FIND_BY_FILM_ID_QUERY,
+                filmIds
         );
     }
 }
@@ -7,7 +7,9 @@ import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.FilmLike;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Component
@@ -18,16 +20,59 @@ public class JdbcFilmLikeRepository extends JdbcBaseRepository<FilmLike> impleme
             FROM "likes"
             WHERE "film_id" IN (%s);
             """;
+    private static final String LIKES_INSERT_QUERY = """
+            MERGE INTO "likes" AS l
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) AS v("film_id", "user_id")
+            ON l."film_id" = v."film_id" AND l."user_id" = v."user_id"
+            WHEN NOT MATCHED THEN
+                INSERT ("film_id", "user_id") VALUES (v."film_id", v."user_id");
+            """;
+    private static final String LIKES_DELETE_QUERY = """
+            DELETE FROM "likes"
+            WHERE "film_id" = ?
+                AND "user_id" = ?;
+            """;
+    private static final String FILMS_CHANGE_LIKES_COUNT_QUERY = """
+            UPDATE "films"
+            SET "likes_count" = "likes_count" + ?,
+                "version" = "version" + ?
+            WHERE "film_id" = ?;
+            """;
 
     public JdbcFilmLikeRepository(JdbcTemplate jdbc, RowMapper<FilmLike> mapper) {
         super(jdbc, mapper);
     }
 
     @Override
-    public List<FilmLike> findLikesOfFilms(String filmsId) {
-        log.info("Получение списка лайков для фильма с id = {}", filmsId);
-        return findMany(
-                String.format(LIKES_FIND_BY_FILM_ID_QUERY, filmsId)
+    public List<FilmLike> findLikesOfFilms(Collection<Long> filmIds) {
+        log.info("Получение списка лайков для {} фильмов", filmIds.size());
+        return findManyByIds(
+                LIKES_FIND_BY_FILM_ID_QUERY,
+                filmIds
         );
     }
+
+    @Override
+    public int[] saveLikes(List<FilmLike> likes) {
+        return batchUpdate(LIKES_INSERT_QUERY, likeArgs(likes));
+    }
+
+    @Override
+    public int[] deleteLikes(List<FilmLike> likes) {
+        return batchUpdate(LIKES_DELETE_QUERY, likeArgs(likes));
+    }
+
+    @Override
+    public void changeLikesCounts(Map<Long, Long> deltas, Map<Long, Long> changes) {
+        batchUpdate(FILMS_CHANGE_LIKES_COUNT_QUERY, changes.entrySet().stream()
+                .map(change -> new Object[]{deltas.getOrDefault(change.getKey(), 0L), change.getValue(),
+                        change.getKey()})
+                .toList());
+    }
+
+    private static List<Object[]> likeArgs(List<FilmLike> likes) {
+        return likes.stream()
+                .map(like -> new Object[]{like.getFilmId(), like.getUserId()})
+                .toList();
+    }
 }
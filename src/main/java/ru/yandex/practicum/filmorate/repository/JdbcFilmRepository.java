@@ -1,18 +1,33 @@
 package ru.yandex.practicum.filmorate.repository;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.FilmGenre;
 import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.FilmSearchField;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.repository.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.index.LikesIndex;
+import ru.yandex.practicum.filmorate.repository.index.PopularFilmsIndex;
+import ru.yandex.practicum.filmorate.repository.index.ScoredId;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,12 +39,27 @@ public class JdbcFilmRepository extends JdbcBaseRepository<Film> implements Film
     private final MpaRepository mpaRepository;
     private final FilmLikeRepository filmLikeRepository;
     private final FilmGenreRepository filmGenreRepository;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final LikesIndex likesIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final boolean popularIndexEnabled;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final QueryFanOut queryFanOut;
 
+    private static final int FILMS_STREAM_BATCH_SIZE = 1000;
     private static final String FILMS_FIND_ALL_QUERY = """
             SELECT *
             FROM "films" AS f
             LEFT JOIN "mpas" AS r ON  f."mpa_id" = r."mpa_id";
             """;
+    private static final String FILMS_FIND_PAGE_QUERY = """
+            SELECT *
+            FROM "films" AS f
+            LEFT JOIN "mpas" AS r ON  f."mpa_id" = r."mpa_id"
+            WHERE f."film_id" > ?
+            ORDER BY f."film_id"
+            LIMIT ?;
+            """;
     private static final String FILMS_INSERT_QUERY = """
             INSERT INTO "films" ("name" , "description" , "release_date" , "duration", "mpa_id")
                         VALUES (?, ?, ?, ?, ?);
@@ -40,7 +70,8 @@ public class JdbcFilmRepository extends JdbcBaseRepository<Film> implements Film
                 "description" = ?,
                 "release_date" = ?,
                 "duration" = ?,
-                "mpa_id" = ?
+                "mpa_id" = ?,
+                "version" = "version" + 1
             WHERE "film_id" = ?;
             """;
     private static final String FILMS_FIND_BY_ID_QUERY = """
@@ -49,35 +80,73 @@ public class JdbcFilmRepository extends JdbcBaseRepository<Film> implements Film
             LEFT JOIN "mpas" AS r ON  f."mpa_id" = r."mpa_id"
             WHERE f."film_id" = ?;
             """;
+    private static final String FILMS_FIND_BY_IDS_QUERY = """
+            SELECT *
+            FROM "films" AS f
+            LEFT JOIN "mpas" AS r ON  f."mpa_id" = r."mpa_id"
+            WHERE f."film_id" IN (%s);
+            """;
+    private static final String FILMS_FIND_VERSION_QUERY = """
+            SELECT "film_id", "version"
+            FROM "films"
+            WHERE "film_id" = ?;
+            """;
+    private static final String FILMS_FIND_POPULAR_VERSIONS_QUERY = """
+            SELECT f."film_id", f."version"
+            FROM "films" AS f
+            WHERE (CAST(? AS INT) IS NULL OR EXISTS (
+                    SELECT 1
+                    FROM "films_genre" AS fg
+                    WHERE fg."film_id" = f."film_id"
+                        AND fg."genre_id" = ?))
+                AND (CAST(? AS DATE) IS NULL OR f."release_date" >= ? AND f."release_date" < ?)
+            ORDER BY f."likes_count" DESC, f."film_id"
+            LIMIT ?;
+            """;
+    private static final RowMapper<EntityVersion> VERSION_MAPPER = (rs, rowNum) -> new EntityVersion(
+            rs.getLong("film_id"),
+            rs.getLong("version")
+    );
     private static final String FILMS_ADD_LIKE_QUERY = """
-            INSERT INTO "likes" ("film_id" , "user_id")
-                        VALUES (?, ?);
+            MERGE INTO "likes" AS l
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) AS v("film_id", "user_id")
+            ON l."film_id" = v."film_id" AND l."user_id" = v."user_id"
+            WHEN NOT MATCHED THEN
+                INSERT ("film_id", "user_id") VALUES (v."film_id", v."user_id");
             """;
     private static final String FILMS_DELETE_LIKE_QUERY = """
             DELETE FROM "likes"
             WHERE "film_id" = ?
                 AND "user_id" = ?;
             """;
-    private static final String FILMS_GET_POPULAR_QUERY = """
-            SELECT
-                f."film_id" AS "film_id",
-                f."name" AS "name",
-                f."description" AS "description",
-                f."release_date" AS "release_date",
-                f."duration" AS "duration",
-                r."mpa_id" AS "mpa_id",
-                r."mpa" AS "mpa",
-            COUNT(l."film_id") AS count
+    private static final String FILMS_CHANGE_LIKES_COUNT_QUERY = """
+            UPDATE "films"
+            SET "likes_count" = "likes_count" + ?,
+                "version" = "version" + 1
+            WHERE "film_id" = ?;
+            """;
+    private static final String FILMS_RECONCILE_LIKES_COUNT_QUERY = """
+            UPDATE "films" AS f
+            SET "likes_count" = (SELECT COUNT(*) FROM "likes" AS l WHERE l."film_id" = f."film_id")
+            WHERE "likes_count" <> (SELECT COUNT(*) FROM "likes" AS l WHERE l."film_id" = f."film_id");
+            """;
+    private static final String FILMS_FIND_POPULAR_QUERY = """
+            SELECT *
             FROM "films" AS f
-            LEFT JOIN "likes" AS l ON l."film_id" = f."film_id"
             LEFT JOIN "mpas" AS r ON  f."mpa_id" = r."mpa_id"
-            GROUP BY f."film_id"
-            ORDER BY count DESC
+            WHERE (CAST(? AS INT) IS NULL OR EXISTS (
+                    SELECT 1
+                    FROM "films_genre" AS fg
+                    WHERE fg."film_id" = f."film_id"
+                        AND fg."genre_id" = ?))
+                AND (CAST(? AS DATE) IS NULL OR f."release_date" >= ? AND f."release_date" < ?)
+            ORDER BY f."likes_count" DESC, f."film_id"
             LIMIT ?;
             """;
     private static final String FILMS_DELETE_FILMS_GENRE_QUERY = """
             DELETE FROM "films_genre"
-            WHERE "film_id" = ?;
+            WHERE "film_id" = ?
+                AND "genre_id" = ?;
             """;
     private static final String FILMS_INSERT_FILMS_GENRE_QUERY = """
             INSERT INTO "films_genre" ("film_id", "genre_id")
@@ -86,148 +155,260 @@ public class JdbcFilmRepository extends JdbcBaseRepository<Film> implements Film
 
     public JdbcFilmRepository(JdbcTemplate jdbc, RowMapper<Film> mapper, UserRepository userRepository,
                               GenreRepository genreRepository, MpaRepository mpaRepository,
-                              FilmLikeRepository likeRepository, FilmGenreRepository filmGenreRepository) {
+                              FilmLikeRepository likeRepository, FilmGenreRepository filmGenreRepository,
+                              PopularFilmsIndex popularFilmsIndex, LikesIndex likesIndex,
+                              FilmSearchIndex filmSearchIndex,
+                              @Value("${filmorate.popular.index.enabled:true}") boolean popularIndexEnabled,
+                              ObjectProvider<LikeWriteBuffer> likeWriteBuffer, QueryFanOut queryFanOut) {
         super(jdbc, mapper);
         this.userRepository = userRepository;
         this.genreRepository = genreRepository;
         this.mpaRepository = mpaRepository;
         this.filmLikeRepository = likeRepository;
         this.filmGenreRepository = filmGenreRepository;
+        this.popularFilmsIndex = popularFilmsIndex;
+        this.likesIndex = likesIndex;
+        this.filmSearchIndex = filmSearchIndex;
+        this.popularIndexEnabled = popularIndexEnabled;
+        this.likeWriteBuffer = likeWriteBuffer.getIfAvailable();
+        this.queryFanOut = queryFanOut;
     }
 
     @Override
     public List<Film> findAll() {
         log.info("Получение списка фильмов");
         List<Film> films = findMany(FILMS_FIND_ALL_QUERY);
-        setFilmsGenres(films);
-        setFilmsLikes(films);
+        setFilmsDetails(films);
+        return films;
+    }
+
+    @Override
+    public List<Film> findPage(long after, int limit) {
+        if (limit <= 0) {
+            throw new ParameterNotValidException("limit", "должен быть больше 0");
+        }
+        log.info("Получение {} фильмов с id больше {}", limit, after);
+        List<Film> films = findMany(FILMS_FIND_PAGE_QUERY, after, limit);
+        setFilmsDetails(films);
         return films;
     }
 
+    @Override
+    public void streamAll(Consumer<Film> consumer) {
+        log.info("Потоковое получение списка фильмов");
+        findEach(FILMS_FIND_ALL_QUERY, FILMS_STREAM_BATCH_SIZE, films -> {
+            setFilmsDetails(films);
+            films.forEach(consumer);
+        });
+    }
+
     @Override
     public Film findById(long id) {
         log.info("Получение фильма с id = {}", id);
-        List<Film> films = findMany(FILMS_FIND_BY_ID_QUERY, id);
-        if (films.size() != 1) {
+        AtomicReference<List<Film>> films = new AtomicReference<>();
+        AtomicReference<List<FilmGenre>> genres = new AtomicReference<>();
+        AtomicReference<List<FilmLike>> likes = new AtomicReference<>();
+        queryFanOut.runAll(List.of(
+                () -> films.set(findMany(FILMS_FIND_BY_ID_QUERY, id)),
+                () -> genres.set(filmGenreRepository.findGenresOfFilms(List.of(id))),
+                () -> likes.set(filmLikeRepository.findLikesOfFilms(List.of(id)))
+        ));
+        if (films.get().size() != 1) {
             throw new NotFoundException("Фильм с id = " + id + " не найден!");
         }
-        setFilmsGenres(films);
-        setFilmsLikes(films);
-        return films.iterator().next();
+        stitchGenres(films.get(), genres.get());
+        stitchLikes(films.get(), likes.get());
+        return films.get().getFirst();
     }
 
     @Override
+    @Transactional
     public Film create(Film film) {
-        validate(film);
-        long id = insertGetKey(
+        createAll(List.of(film));
+        log.info("Фильм {} добавлен в список с id = {}", film.getName(), film.getId());
+        return film;
+    }
+
+    @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        films.forEach(this::validate);
+        List<Long> ids = batchInsertGetKeys(
                 FILMS_INSERT_QUERY,
-                film.getName(),
-                film.getDescription(),
-                java.sql.Date.valueOf(film.getReleaseDate()),
-                film.getDuration(),
-                film.getMpa().getId()
+                films.stream()
+                        .map(film -> new Object[]{
+                                film.getName(),
+                                film.getDescription(),
+                                java.sql.Date.valueOf(film.getReleaseDate()),
+                                film.getDuration(),
+                                film.getMpa().getId()})
+                        .toList()
         );
-        film.setId(id);
-        for (Genre genre : film.getGenres()) {
-            insert(
-                    FILMS_INSERT_FILMS_GENRE_QUERY,
-                    film.getId(),
-                    genre.getId()
-            );
+        for (int idx = 0; idx < films.size(); idx++) {
+            films.get(idx).setId(ids.get(idx));
         }
-        setFilmsGenres(List.of(film));
-        film.setMpa(mpaRepository.findById(film.getMpa().getId()));
-        log.info("Фильм {} добавлен в список с id = {}", film.getName(), film.getId());
-        return film;
+        batchUpdate(
+                FILMS_INSERT_FILMS_GENRE_QUERY,
+                films.stream()
+                        .flatMap(film -> filmGenreArgs(film.getId(), film.getGenres().stream()
+                                .map(Genre::getId)
+                                .toList()).stream())
+                        .toList()
+        );
+        for (Film film : films) {
+            enrich(film);
+            popularFilmsIndex.addFilm(film);
+            filmSearchIndex.addFilm(film);
+        }
+        return films;
     }
 
     @Override
+    @Transactional
     public Film update(Film film) {
-        if (checkFilmExists(film.getId())) {
-            validate(film);
-            update(
-                    FILMS_UPDATE_QUERY,
-                    film.getName(),
-                    film.getDescription(),
-                    java.sql.Date.valueOf(film.getReleaseDate()),
-                    film.getDuration(),
-                    film.getMpa().getId(),
-                    film.getId()
-            );
-            delete(
-                    FILMS_DELETE_FILMS_GENRE_QUERY,
-                    film.getId()
-            );
-            for (Genre genre : film.getGenres()) {
-                insert(
-                        FILMS_INSERT_FILMS_GENRE_QUERY,
-                        film.getId(),
-                        genre.getId()
-                );
-            }
-            setFilmsGenres(List.of(film));
-            film.setMpa(mpaRepository.findById(film.getMpa().getId()));
-            log.info("Фильм с id = {} обновлен", film.getId());
-            return film;
+        if (findMany(FILMS_FIND_VERSION_QUERY, VERSION_MAPPER, film.getId()).isEmpty()) {
+            throw new NotFoundException("Фильм с id = " + film.getId() + " не найден");
         }
-        throw new NotFoundException("Фильм с id = " + film.getId() + " не найден");
+        validate(film);
+        update(
+                FILMS_UPDATE_QUERY,
+                film.getName(),
+                film.getDescription(),
+                java.sql.Date.valueOf(film.getReleaseDate()),
+                film.getDuration(),
+                film.getMpa().getId(),
+                film.getId()
+        );
+        film.setVersion(findVersion(film.getId()).version());
+        Set<Integer> oldGenreIds = filmGenreRepository.findGenresOfFilms(List.of(film.getId())).stream()
+                .map(FilmGenre::getGenreId)
+                .collect(Collectors.toSet());
+        Set<Integer> newGenreIds = film.getGenres().stream()
+                .map(Genre::getId)
+                .collect(Collectors.toSet());
+        batchUpdate(
+                FILMS_DELETE_FILMS_GENRE_QUERY,
+                filmGenreArgs(film.getId(), oldGenreIds.stream()
+                        .filter(genreId -> !newGenreIds.contains(genreId))
+                        .toList())
+        );
+        batchUpdate(
+                FILMS_INSERT_FILMS_GENRE_QUERY,
+                filmGenreArgs(film.getId(), newGenreIds.stream()
+                        .filter(genreId -> !oldGenreIds.contains(genreId))
+                        .toList())
+        );
+        enrich(film);
+        popularFilmsIndex.addFilm(film);
+        filmSearchIndex.addFilm(film);
+        log.info("Фильм с id = {} обновлен", film.getId());
+        return film;
     }
 
     @Override
+    @Transactional
     public Film addLike(long id, long userId) {
-        if (!checkFilmExists(id)) {
-            throw new NotFoundException("Фильм с id = " + id + " не найден");
-        }
-        if (!userRepository.checkUserExists(userId)) {
-            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
-        }
-        Film film = findOne(
-                FILMS_FIND_BY_ID_QUERY,
-                id
-        ).orElse(null);
-        insert(
-                FILMS_ADD_LIKE_QUERY,
-                id,
-                userId
-        );
+        saveLike(id, userId);
+        Film film = findLikedFilm(id);
         film.addLike(userId);
-        log.info("Пользователь с id = {} поставил лайк фильму id = {}", userId, id);
         return film;
     }
 
     @Override
-    public Film deleteLike(long id, long userId) {
-        if (!checkFilmExists(id)) {
-            throw new NotFoundException("Фильм с id = " + id + " не найден");
-        }
-        if (!userRepository.checkUserExists(userId)) {
-            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
-        }
+    @Transactional
+    public long addLikeGetCount(long id, long userId) {
+        saveLike(id, userId);
+        return likesCount(id);
+    }
 
-        Film film = findOne(
-                FILMS_FIND_BY_ID_QUERY,
-                id
-        ).orElse(null);
-        delete(
-                FILMS_DELETE_LIKE_QUERY,
-                id,
-                userId
-        );
+    @Override
+    @Transactional
+    public Film deleteLike(long id, long userId) {
+        removeLike(id, userId);
+        Film film = findLikedFilm(id);
         film.deleteLike(userId);
-        log.info("Пользователь с id = {} удалил лайк фильму id = {}", userId, id);
         return film;
     }
 
+    @Override
+    @Transactional
+    public long deleteLikeGetCount(long id, long userId) {
+        removeLike(id, userId);
+        return likesCount(id);
+    }
+
     @Override
     public List<Film> getPopular(long count) {
+        return getPopular(count, null, null);
+    }
+
+    @Override
+    public List<Film> getPopular(long count, Integer genreId, Integer year) {
         if (count < 0) {
             throw new ValidationException("Параметр count должен быть больше 0");
         }
-        log.info("Получение списка {} популярных фильмов", count);
-        return findMany(
-                FILMS_GET_POPULAR_QUERY,
-                count
-        );
+        log.info("Получение списка {} популярных фильмов, жанр: {}, год: {}", count, genreId, year);
+        if (popularIndexEnabled) {
+            List<Film> films = popularFilmsIndex.getTop(count, genreId, year);
+            films.forEach(film -> film.setLikes(likesIndex.findLikers(film.getId())));
+            return films;
+        }
+        List<Film> films = findMany(FILMS_FIND_POPULAR_QUERY, popularParams(count, genreId, year));
+        setFilmsDetails(films);
+        return films;
+    }
+
+    @Override
+    public EntityVersion findVersion(long id) {
+        return findMany(FILMS_FIND_VERSION_QUERY, VERSION_MAPPER, id).stream()
+                .findFirst()
+                .orElseThrow(() -> new NotFoundException("Фильм с id = " + id + " не найден!"));
+    }
+
+    @Override
+    public List<EntityVersion> findPopularVersions(long count, Integer genreId, Integer year) {
+        if (count < 0) {
+            throw new ValidationException("Параметр count должен быть больше 0");
+        }
+        if (popularIndexEnabled) {
+            return popularFilmsIndex.getTopVersions(count, genreId, year);
+        }
+        return findMany(FILMS_FIND_POPULAR_VERSIONS_QUERY, VERSION_MAPPER, popularParams(count, genreId, year));
+    }
+
+    @Override
+    @Transactional
+    public int reconcileLikesCounts() {
+        int rowsUpdated = updateRows(FILMS_RECONCILE_LIKES_COUNT_QUERY);
+        if (rowsUpdated > 0) {
+            popularFilmsIndex.load();
+        }
+        log.info("Счетчики лайков пересчитаны, исправлено фильмов: {}", rowsUpdated);
+        return rowsUpdated;
+    }
+
+    @Override
+    public List<Film> findRecommendations(long userId, int limit) {
+        if (limit <= 0) {
+            throw new ParameterNotValidException("limit", "должен быть больше 0");
+        }
+        if (!userRepository.checkUserExists(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+        log.info("Поиск рекомендаций фильмов для пользователя с id = {}", userId);
+        return findInOrder(likesIndex.recommendFilms(userId, limit));
+    }
+
+    @Override
+    public List<Film> search(String query, Set<FilmSearchField> by, int limit) {
+        if (limit <= 0) {
+            throw new ParameterNotValidException("limit", "должен быть больше 0");
+        }
+        if (query == null || query.isBlank()) {
+            throw new ParameterNotValidException("query", "не должен быть пустым");
+        }
+        log.info("Поиск фильмов по запросу '{}' в полях {}", query, by);
+        return findInOrder(filmSearchIndex.search(query, by, limit));
     }
 
     public boolean checkFilmExists(long id) {
@@ -236,33 +417,177 @@ public class JdbcFilmRepository extends JdbcBaseRepository<Film> implements Film
                 id).isPresent();
     }
 
+    private List<Film> findInOrder(List<ScoredId> ranked) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        for (Film film : findManyByIds(FILMS_FIND_BY_IDS_QUERY, ranked.stream()
+                .map(ScoredId::id)
+                .toList())) {
+            filmsById.put(film.getId(), film);
+        }
+        List<Film> films = ranked.stream()
+                .map(scored -> filmsById.get(scored.id()))
+                .filter(Objects::nonNull)
+                .toList();
+        setFilmsDetails(films);
+        return films;
+    }
+
+    private static Object[] popularParams(long count, Integer genreId, Integer year) {
+        java.sql.Date from = year == null ? null : java.sql.Date.valueOf(LocalDate.of(year, 1, 1));
+        java.sql.Date to = year == null ? null : java.sql.Date.valueOf(LocalDate.of(year + 1, 1, 1));
+        return new Object[]{genreId, genreId, from, from, to, count};
+    }
+
+    private void setFilmsDetails(List<Film> films) {
+        if (films.isEmpty()) {
+            return;
+        }
+        queryFanOut.runAll(List.of(
+                () -> setFilmsGenres(films),
+                () -> setFilmsLikes(films)
+        ));
+    }
+
     private void setFilmsGenres(List<Film> films) {
-        String filmsId = films.stream()
-                .map(film -> film.getId().toString())
-                .collect(Collectors.joining(", "));
-        List<FilmGenre> filmGenres = filmGenreRepository.findGenresOfFilms(filmsId);
+        List<Long> filmIds = films.stream()
+                .map(Film::getId)
+                .toList();
+        stitchGenres(films, filmGenreRepository.findGenresOfFilms(filmIds));
+    }
+
+    private void setFilmsLikes(List<Film> films) {
+        List<Long> filmIds = films.stream()
+                .map(Film::getId)
+                .toList();
+        stitchLikes(films, filmLikeRepository.findLikesOfFilms(filmIds));
+    }
+
+    static void stitchGenres(List<Film> films, List<FilmGenre> filmGenres) {
+        Map<Long, Set<Genre>> genresByFilm = HashMap.newHashMap(films.size());
         for (Film film : films) {
-            film.setGenres(filmGenres.stream()
-                    .filter(filmGenre -> film.getId() == filmGenre.getFilmId())
-                    .map(filmGenre -> new Genre(
-                            filmGenre.getGenreId(),
-                            filmGenre.getGenre())
-                    )
-                    .collect(Collectors.toSet()));
+            Set<Genre> genres = new LinkedHashSet<>();
+            film.setGenres(genres);
+            genresByFilm.put(film.getId(), genres);
+        }
+        for (FilmGenre filmGenre : filmGenres) {
+            Set<Genre> genres = genresByFilm.get(filmGenre.getFilmId());
+            if (genres != null) {
+                genres.add(new Genre(filmGenre.getGenreId(), filmGenre.getGenre()));
+            }
         }
     }
 
-    private void setFilmsLikes(List<Film> films) {
-        String filmsId = films.stream()
-                .map(film -> film.getId().toString())
-                .collect(Collectors.joining(", "));
-        List<FilmLike> filmLikes = filmLikeRepository.findLikesOfFilms(filmsId);
+    static void stitchLikes(List<Film> films, List<FilmLike> filmLikes) {
+        Map<Long, Set<Long>> likesByFilm = HashMap.newHashMap(films.size());
         for (Film film : films) {
-            film.setLikes(filmLikes.stream()
-                    .filter(filmLike -> film.getId() == filmLike.getFilmId())
-                    .map(FilmLike::getUserId)
-                    .collect(Collectors.toSet()));
+            Set<Long> likes = new HashSet<>();
+            film.setLikes(likes);
+            likesByFilm.put(film.getId(), likes);
         }
+        for (FilmLike filmLike : filmLikes) {
+            Set<Long> likes = likesByFilm.get(filmLike.getFilmId());
+            if (likes != null) {
+                likes.add(filmLike.getUserId());
+            }
+        }
+    }
+
+    private long likesCount(long id) {
+        long count = popularFilmsIndex.getLikesCount(id);
+        return likeWriteBuffer == null ? count : count + likeWriteBuffer.pendingLikesDelta(id);
+    }
+
+    private void saveLike(long id, long userId) {
+        if (likeWriteBuffer != null) {
+            checkBufferedLikeTargetsExist(id, userId);
+            likeWriteBuffer.like(id, userId);
+            log.info("Лайк пользователя с id = {} фильму id = {} поставлен в очередь на запись", userId, id);
+            return;
+        }
+        if (!checkFilmExists(id)) {
+            throw new NotFoundException("Фильм с id = " + id + " не найден");
+        }
+        int rowsInserted;
+        try {
+            rowsInserted = updateRows(
+                    FILMS_ADD_LIKE_QUERY,
+                    id,
+                    userId
+            );
+        } catch (DuplicateKeyException e) {
+            rowsInserted = 0;
+        } catch (DataIntegrityViolationException e) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+        if (rowsInserted > 0) {
+            update(FILMS_CHANGE_LIKES_COUNT_QUERY, 1, id);
+            popularFilmsIndex.likeAdded(id);
+            likesIndex.likeAdded(id, userId);
+        }
+        log.info("Пользователь с id = {} поставил лайк фильму id = {}", userId, id);
+    }
+
+    private void removeLike(long id, long userId) {
+        if (likeWriteBuffer != null) {
+            checkBufferedLikeTargetsExist(id, userId);
+            likeWriteBuffer.unlike(id, userId);
+            log.info("Удаление лайка пользователя с id = {} фильму id = {} поставлено в очередь на запись",
+                    userId, id);
+            return;
+        }
+        if (delete(
+                FILMS_DELETE_LIKE_QUERY,
+                id,
+                userId
+        )) {
+            update(FILMS_CHANGE_LIKES_COUNT_QUERY, -1, id);
+            popularFilmsIndex.likeRemoved(id);
+            likesIndex.likeRemoved(id, userId);
+        } else {
+            checkLikeTargetsExist(id, userId);
+        }
+        log.info("Пользователь с id = {} удалил лайк фильму id = {}", userId, id);
+    }
+
+    private void checkLikeTargetsExist(long id, long userId) {
+        if (!checkFilmExists(id)) {
+            throw new NotFoundException("Фильм с id = " + id + " не найден");
+        }
+        if (!userRepository.checkUserExists(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+    }
+
+    private void checkBufferedLikeTargetsExist(long id, long userId) {
+        if (!popularFilmsIndex.containsFilm(id)) {
+            throw new NotFoundException("Фильм с id = " + id + " не найден");
+        }
+        if (!userRepository.checkUserExists(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+    }
+
+    private Film findLikedFilm(long id) {
+        Film film = popularFilmsIndex.findFilm(id)
+                .or(() -> findOne(
+                        FILMS_FIND_BY_ID_QUERY,
+                        id))
+                .orElseThrow(() -> new NotFoundException("Фильм с id = " + id + " не найден"));
+        film.setLikes(likesIndex.findLikers(id));
+        return film;
+    }
+
+    private static List<Object[]> filmGenreArgs(long filmId, List<Integer> genreIds) {
+        return genreIds.stream()
+                .map(genreId -> new Object[]{filmId, genreId})
+                .toList();
+    }
+
+    private void enrich(Film film) {
+        film.setGenres(film.getGenres().stream()
+                .map(genre -> genreRepository.findById(genre.getId()))
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        film.setMpa(mpaRepository.findById(film.getMpa().getId()));
     }
 
     private void validate(Film film) {
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -9,7 +10,7 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
 import ru.yandex.practicum.filmorate.model.Genre;
 
-import java.util.List;
+import java.util.*;
 
 @Slf4j
 @Component
@@ -19,37 +20,49 @@ public class JdbcGenreRepository extends JdbcBaseRepository<Genre> implements Ge
             SELECT *
             FROM "genres";
             """;
-    private static final String GENRES_FIND_BY_ID_QUERY = """
-            SELECT *
-            FROM "genres"
-            WHERE "genre_id" = ?;
-            """;
+
+    private volatile Map<Integer, Genre> genresById = Map.of();
 
     public JdbcGenreRepository(JdbcTemplate jdbc, RowMapper<Genre> mapper) {
         super(jdbc, mapper);
     }
 
+    @Override
+    @PostConstruct
+    public void refresh() {
+        Map<Integer, Genre> loadedGenres = new LinkedHashMap<>();
+        for (Genre genre : findMany(GENRES_FIND_ALL_QUERY)) {
+            loadedGenres.put(genre.getId(), genre);
+        }
+        genresById = Collections.unmodifiableMap(loadedGenres);
+        log.info("Справочник жанров загружен, жанров: {}", loadedGenres.size());
+    }
+
     @Override
     public List<Genre> findAll() {
         log.info("Получение списка жанров");
-        return findMany(GENRES_FIND_ALL_QUERY);
+        return genresById.values().stream()
+                .map(genre -> new Genre(genre.getId(), genre.getName()))
+                .toList();
     }
 
     @Override
     public Genre findById(int id) {
         log.info("Получение жанра с id = {}", id);
-        return findOne(
-                GENRES_FIND_BY_ID_QUERY,
-                id
-        ).orElseThrow(() -> new NotFoundException("Жанр с id = " + id + " не найден!"));
+        return find(id)
+                .orElseThrow(() -> new NotFoundException("Жанр с id = " + id + " не найден!"));
     }
 
     public void checkGenresExists(List<Genre> genres) {
-        List<Genre> existsGenres = findAll();
         for (Genre genre : genres) {
-            if (!existsGenres.contains(genre)) {
+            if (find(genre.getId()).isEmpty()) {
                 throw new ParameterNotValidException("Жанр с id = " + genre.getId(), " не найден!");
             }
         }
     }
+
+    private Optional<Genre> find(int id) {
+        return Optional.ofNullable(genresById.get(id))
+                .map(found -> new Genre(found.getId(), found.getName()));
+    }
 }
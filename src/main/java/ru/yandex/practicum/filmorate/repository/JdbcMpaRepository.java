@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -9,7 +10,7 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 
-import java.util.List;
+import java.util.*;
 
 @Slf4j
 @Component
@@ -19,36 +20,47 @@ public class JdbcMpaRepository extends JdbcBaseRepository<Mpa> implements MpaRep
             SELECT *
             FROM "mpas";
             """;
-    private static final String MPA_FIND_BY_ID_QUERY = """
-            SELECT *
-            FROM "mpas"
-            WHERE "mpa_id" = ?;
-            """;
+
+    private volatile Map<Integer, Mpa> mpasById = Map.of();
 
     public JdbcMpaRepository(JdbcTemplate jdbc, RowMapper<Mpa> mapper) {
         super(jdbc, mapper);
     }
 
+    @Override
+    @PostConstruct
+    public void refresh() {
+        Map<Integer, Mpa> loadedMpas = new LinkedHashMap<>();
+        for (Mpa mpa : findMany(MPA_FIND_ALL_QUERY)) {
+            loadedMpas.put(mpa.getId(), mpa);
+        }
+        mpasById = Collections.unmodifiableMap(loadedMpas);
+        log.info("Справочник рейтингов загружен, рейтингов: {}", loadedMpas.size());
+    }
+
     @Override
     public List<Mpa> findAll() {
         log.info("Получение списка рейтингов");
-        return findMany(MPA_FIND_ALL_QUERY);
+        return mpasById.values().stream()
+                .map(mpa -> new Mpa(mpa.getId(), mpa.getName()))
+                .toList();
     }
 
     @Override
     public Mpa findById(int id) {
         log.info("Получение рейтинга с id = {}", id);
-        return findOne(
-                MPA_FIND_BY_ID_QUERY,
-                id
-        ).orElseThrow(() -> new NotFoundException("Рейтинг MPA с id = " + id + " не найден!"));
+        return find(id)
+                .orElseThrow(() -> new NotFoundException("Рейтинг MPA с id = " + id + " не найден!"));
     }
 
     public void checkMpaExists(int id) {
-        if (findOne(
-                MPA_FIND_BY_ID_QUERY,
-                id).isEmpty()) {
+        if (find(id).isEmpty()) {
             throw new ParameterNotValidException(String.valueOf(id), " <--Нет такого id MPA");
         }
     }
+
+    private Optional<Mpa> find(int id) {
+        return Optional.ofNullable(mpasById.get(id))
+                .map(found -> new Mpa(found.getId(), found.getName()));
+    }
 }
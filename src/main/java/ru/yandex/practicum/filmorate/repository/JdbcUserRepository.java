@@ -5,23 +5,40 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
-import ru.yandex.practicum.filmorate.model.Friend;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.index.FriendshipGraph;
+import ru.yandex.practicum.filmorate.repository.index.ScoredId;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
 @Primary
 public class JdbcUserRepository extends JdbcBaseRepository<User> implements UserRepository {
+    private final FriendshipGraph friendshipGraph;
+
+    private static final int USERS_STREAM_BATCH_SIZE = 1000;
     private static final int USERS_FRIENDSHIP_STATUS_CONFIRMED = 1;
     private static final int USERS_FRIENDSHIP_STATUS_UNCONFIRMED = 2;
     private static final String USERS_FIND_ALL_QUERY = """
             SELECT *
             FROM "users";
             """;
+    private static final String USERS_FIND_PAGE_QUERY = """
+            SELECT *
+            FROM "users"
+            WHERE "user_id" > ?
+            ORDER BY "user_id"
+            LIMIT ?;
+            """;
     private static final String USERS_INSERT_QUERY = """
             INSERT INTO "users" ("email", "login", "username", "birthday")
                         VALUES (?, ?, ?, ?);
@@ -31,7 +48,8 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
             SET "email" = ?,
                 "login" = ?,
                 "username" = ?,
-                "birthday" = ?
+                "birthday" = ?,
+                "version" = "version" + 1
             WHERE "user_id" = ?;
             """;
     private static final String USERS_ADD_TO_FRIENDS_QUERY = """
@@ -43,32 +61,24 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
             WHERE "user_id" = ?
                 AND "friend_id" = ?;
             """;
-    private static final String USERS_FIND_ALL_FRIENDS_QUERY = """
-            SELECT *
-            FROM "users" AS u
-            WHERE "user_id" IN (
-                SELECT "friend_id"
-                FROM "friends"
-                WHERE "user_id" = ?
-                );
+    private static final String USERS_INCREMENT_VERSION_QUERY = """
+            UPDATE "users"
+            SET "version" = "version" + 1
+            WHERE "user_id" = ?;
             """;
-    private static final String USERS_FIND_COMMON_FRIENDS_QUERY = """
+    private static final String USERS_FIND_VERSIONS_BY_IDS_QUERY = """
+            SELECT "user_id", "version"
+            FROM "users"
+            WHERE "user_id" IN (%s);
+            """;
+    private static final RowMapper<EntityVersion> VERSION_MAPPER = (rs, rowNum) -> new EntityVersion(
+            rs.getLong("user_id"),
+            rs.getLong("version")
+    );
+    private static final String USERS_FIND_BY_IDS_QUERY = """
             SELECT *
-            FROM "users" AS u
-            WHERE u."user_id" IN (
-                SELECT friends_of_first.friend
-                FROM (
-                    SELECT "friend_id" AS friend FROM "friends" WHERE "user_id" = ?
-                    UNION
-                    SELECT "user_id" AS friend FROM "friends" WHERE "friend_id" = ?
-                    ) AS friends_of_first
-                JOIN (
-                    SELECT "friend_id" AS friend FROM "friends" WHERE "user_id" = ?
-                    UNION
-                    SELECT "user_id" AS friend FROM "friends" WHERE "friend_id" = ?
-                    ) AS friends_of_second
-                ON friends_of_first.friend = friends_of_second.friend
-            );
+            FROM "users"
+            WHERE "user_id" IN (%s);
             """;
     private static final String USERS_FIND_BY_ID_QUERY = """
             SELECT *
@@ -76,14 +86,48 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
             WHERE "user_id" = ?;
             """;
 
-    public JdbcUserRepository(JdbcTemplate jdbc, RowMapper<User> mapper) {
+    public JdbcUserRepository(JdbcTemplate jdbc, RowMapper<User> mapper, FriendshipGraph friendshipGraph) {
         super(jdbc, mapper);
+        this.friendshipGraph = friendshipGraph;
     }
 
     @Override
     public List<User> findAll() {
+        return findAll(true);
+    }
+
+    @Override
+    public List<User> findAll(boolean withFriends) {
         log.info("Получение списка пользователей");
-        return findMany(USERS_FIND_ALL_QUERY);
+        List<User> users = findMany(USERS_FIND_ALL_QUERY);
+        if (withFriends) {
+            setUsersFriends(users);
+        }
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(long after, int limit, boolean withFriends) {
+        if (limit <= 0) {
+            throw new ParameterNotValidException("limit", "должен быть больше 0");
+        }
+        log.info("Получение {} пользователей с id больше {}", limit, after);
+        List<User> users = findMany(USERS_FIND_PAGE_QUERY, after, limit);
+        if (withFriends) {
+            setUsersFriends(users);
+        }
+        return users;
+    }
+
+    @Override
+    public void streamAll(boolean withFriends, Consumer<User> consumer) {
+        log.info("Потоковое получение списка пользователей");
+        findEach(USERS_FIND_ALL_QUERY, USERS_STREAM_BATCH_SIZE, users -> {
+            if (withFriends) {
+                setUsersFriends(users);
+            }
+            users.forEach(consumer);
+        });
     }
 
     @Override
@@ -93,14 +137,37 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
                 user.getEmail(),
                 user.getLogin(),
                 user.getName(),
-                java.sql.Date.valueOf(user.getBirthday())
+                toSqlDate(user.getBirthday())
         );
         user.setId(id);
+        friendshipGraph.addUser(id);
         log.info("Пользователь {} добавлен в список с id = {}", user.getName(), user.getId());
         return user;
     }
 
     @Override
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        List<Long> ids = batchInsertGetKeys(
+                USERS_INSERT_QUERY,
+                users.stream()
+                        .map(user -> new Object[]{
+                                user.getEmail(),
+                                user.getLogin(),
+                                user.getName(),
+                                toSqlDate(user.getBirthday())})
+                        .toList()
+        );
+        for (int idx = 0; idx < users.size(); idx++) {
+            users.get(idx).setId(ids.get(idx));
+            friendshipGraph.addUser(ids.get(idx));
+        }
+        log.info("Добавлено пользователей: {}", users.size());
+        return users;
+    }
+
+    @Override
+    @Transactional
     public User update(User user) {
         if (checkUserExists(user.getId())) {
             update(
@@ -108,7 +175,7 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
                     user.getEmail(),
                     user.getLogin(),
                     user.getName(),
-                    java.sql.Date.valueOf(user.getBirthday()),
+                    toSqlDate(user.getBirthday()),
                     user.getId()
             );
             log.info("Пользователь с id = {} обновлен", user.getId());
@@ -118,6 +185,7 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
     }
 
     @Override
+    @Transactional
     public User addToFriends(long id, long friendId) {
         if (!checkUserExists(id)) {
             throw new NotFoundException("Пользователь с id = " + id + " не найден");
@@ -138,12 +206,16 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
                 friendId,
                 USERS_FRIENDSHIP_STATUS_UNCONFIRMED
         );
-        user.addFriend(new Friend(friendId, USERS_FRIENDSHIP_STATUS_UNCONFIRMED));
+        update(USERS_INCREMENT_VERSION_QUERY, id);
+        user.setVersion(user.getVersion() + 1);
+        friendshipGraph.addFriend(id, friendId, USERS_FRIENDSHIP_STATUS_UNCONFIRMED);
+        setUsersFriends(List.of(user));
         log.info("Пользователь с id = {} и пользователь с id = {} теперь друзья", friendId, id);
         return user;
     }
 
     @Override
+    @Transactional
     public void deleteFromFriends(long id, long friendId) {
         if (!checkUserExists(id)) {
             throw new NotFoundException("Пользователь с id = " + id + " не найден");
@@ -151,11 +223,14 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
         if (!checkUserExists(friendId)) {
             throw new NotFoundException("Пользователь с id = " + friendId + " не найден");
         }
-        delete(
+        if (delete(
                 USERS_DELETE_FROM_FRIENDS_QUERY,
                 id,
                 friendId
-        );
+        )) {
+            update(USERS_INCREMENT_VERSION_QUERY, id);
+            friendshipGraph.removeFriend(id, friendId);
+        }
         log.info("Пользователь с id = {} и пользователь с id = {} больше не друзья", friendId, id);
     }
 
@@ -165,10 +240,23 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
             throw new NotFoundException("Пользователь с id = " + id + " не найден");
         }
         log.info("Поиск друзей пользователя с id = {}", id);
-        return findMany(
-                USERS_FIND_ALL_FRIENDS_QUERY,
-                id
-        );
+        List<User> friends = findByIds(friendshipGraph.friendsOf(id));
+        setUsersFriends(friends);
+        return friends;
+    }
+
+    @Override
+    public List<EntityVersion> findFriendsVersions(long id) {
+        if (!checkUserExists(id)) {
+            throw new NotFoundException("Пользователь с id = " + id + " не найден");
+        }
+        List<EntityVersion> versions = new ArrayList<>(findManyByIds(
+                USERS_FIND_VERSIONS_BY_IDS_QUERY,
+                Arrays.stream(friendshipGraph.friendsOf(id)).boxed().toList(),
+                VERSION_MAPPER
+        ));
+        versions.sort(Comparator.comparingLong(EntityVersion::id));
+        return versions;
     }
 
     @Override
@@ -180,19 +268,55 @@ public class JdbcUserRepository extends JdbcBaseRepository<User> implements User
             throw new NotFoundException("Пользователь с id = " + otherId + " не найден");
         }
         log.info("Поиск общих друзей пользователя с id = {} и пользователя с id = {}", id, otherId);
-        return findMany(
-                USERS_FIND_COMMON_FRIENDS_QUERY,
-                id,
-                id,
-                otherId,
-                otherId
-        );
+        List<User> commonFriends = findByIds(friendshipGraph.commonFriends(id, otherId));
+        setUsersFriends(commonFriends);
+        return commonFriends;
+    }
+
+    @Override
+    public List<FriendSuggestion> findFriendSuggestions(long id, int limit) {
+        if (limit <= 0) {
+            throw new ParameterNotValidException("limit", "должен быть больше 0");
+        }
+        if (!checkUserExists(id)) {
+            throw new NotFoundException("Пользователь с id = " + id + " не найден");
+        }
+        log.info("Поиск рекомендаций друзей для пользователя с id = {}", id);
+        List<ScoredId> suggestions = friendshipGraph.suggestFriends(id, limit);
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : findByIds(suggestions.stream().mapToLong(ScoredId::id).toArray())) {
+            usersById.put(user.getId(), user);
+        }
+        setUsersFriends(List.copyOf(usersById.values()));
+        return suggestions.stream()
+                .filter(suggestion -> usersById.containsKey(suggestion.id()))
+                .map(suggestion -> new FriendSuggestion(
+                        usersById.get(suggestion.id()),
+                        (int) suggestion.score()))
+                .toList();
     }
 
     @Override
     public boolean checkUserExists(long id) {
-        return findOne(
-                USERS_FIND_BY_ID_QUERY,
-                id).isPresent();
+        return friendshipGraph.containsUser(id);
+    }
+
+    private List<User> findByIds(long[] ids) {
+        List<User> users = new ArrayList<>(findManyByIds(
+                USERS_FIND_BY_IDS_QUERY,
+                Arrays.stream(ids).boxed().toList()
+        ));
+        users.sort(Comparator.comparingLong(User::getId));
+        return users;
+    }
+
+    private void setUsersFriends(List<User> users) {
+        for (User user : users) {
+            user.setFriends(friendshipGraph.friendsWithStatus(user.getId()));
+        }
+    }
+
+    private static java.sql.Date toSqlDate(LocalDate date) {
+        return date == null ? null : java.sql.Date.valueOf(date);
     }
 }
@@ -0,0 +1,285 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.repository.index.LikesIndex;
+import ru.yandex.practicum.filmorate.repository.index.PopularFilmsIndex;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "filmorate.likes.write-behind.enabled", havingValue = "true")
+public class LikeWriteBuffer {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final FilmLikeRepository filmLikeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final LikesIndex likesIndex;
+    private final Stripe[] stripes;
+    private final int capacity;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+    private final Timer flushTimer;
+    private final Counter coalescedCounter;
+    private final Counter writtenCounter;
+
+    public LikeWriteBuffer(FilmLikeRepository filmLikeRepository, PlatformTransactionManager transactionManager,
+                           PopularFilmsIndex popularFilmsIndex, LikesIndex likesIndex,
+                           ObjectProvider<MeterRegistry> meterRegistry,
+                           @Value("${filmorate.likes.write-behind.stripes:16}") int stripes,
+                           @Value("${filmorate.likes.write-behind.capacity:100000}") int capacity,
+                           @Value("${filmorate.likes.write-behind.batch-size:1000}") int batchSize,
+                           @Value("${filmorate.likes.write-behind.flush-interval:200ms}") Duration flushInterval) {
+        this.filmLikeRepository = filmLikeRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.popularFilmsIndex = popularFilmsIndex;
+        this.likesIndex = likesIndex;
+        this.stripes = new Stripe[stripes];
+        for (int idx = 0; idx < stripes; idx++) {
+            this.stripes[idx] = new Stripe();
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        Gauge.builder("filmorate.likes.buffer.size", size, AtomicInteger::get)
+                .description("Лайки, ожидающие записи в базу")
+                .register(registry);
+        this.flushTimer = Timer.builder("filmorate.likes.buffer.flush")
+                .description("Время записи накопленных лайков")
+                .register(registry);
+        this.coalescedCounter = Counter.builder("filmorate.likes.buffer.coalesced")
+                .description("Операции с лайками, поглощенные более поздними")
+                .register(registry);
+        this.writtenCounter = Counter.builder("filmorate.likes.buffer.written")
+                .description("Операции с лайками, записанные в базу")
+                .register(registry);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "likes-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(), flushInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        log.info("Отложенная запись лайков включена, емкость буфера: {}, размер пакета: {}, интервал: {}",
+                capacity, batchSize, flushInterval);
+    }
+
+    public void like(long filmId, long userId) {
+        offer(new LikeKey(filmId, userId), true);
+    }
+
+    public void unlike(long filmId, long userId) {
+        offer(new LikeKey(filmId, userId), false);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long pendingLikesDelta(long filmId) {
+        Stripe stripe = stripe(filmId);
+        synchronized (stripe) {
+            Map<Long, Boolean> users = stripe.pending.get(filmId);
+            if (users == null) {
+                return 0;
+            }
+            long delta = 0;
+            for (Map.Entry<Long, Boolean> operation : users.entrySet()) {
+                if (operation.getValue() != likesIndex.containsLike(filmId, operation.getKey())) {
+                    delta += operation.getValue() ? 1 : -1;
+                }
+            }
+            return delta;
+        }
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            Map<LikeKey, Boolean> batch = snapshot();
+            if (batch.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+                complete(batch);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось записать пакет из {} операций с лайками, записываем по одной", batch.size(), e);
+                writeEach(batch);
+            } finally {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        if (!flusher.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Фоновая запись лайков не завершилась за {} с", SHUTDOWN_TIMEOUT_SECONDS);
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось сохранить {} лайков при остановке", size.get(), e);
+        }
+    }
+
+    private void offer(LikeKey key, boolean liked) {
+        Stripe stripe = stripe(key.filmId());
+        boolean added;
+        synchronized (stripe) {
+            added = stripe.pending.computeIfAbsent(key.filmId(), filmId -> new HashMap<>())
+                    .put(key.userId(), liked) == null;
+        }
+        if (!added) {
+            coalescedCounter.increment();
+            return;
+        }
+        int pending = size.incrementAndGet();
+        if (pending >= capacity) {
+            flush();
+        } else if (pending >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать накопленные лайки, {} операций ожидают повтора", size.get(), e);
+        }
+    }
+
+    private Stripe stripe(long filmId) {
+        return stripes[Math.floorMod(Long.hashCode(filmId), stripes.length)];
+    }
+
+    private Map<LikeKey, Boolean> snapshot() {
+        Map<LikeKey, Boolean> batch = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.pending.forEach((filmId, users) -> users.forEach((userId, liked) ->
+                        batch.put(new LikeKey(filmId, userId), liked)));
+            }
+        }
+        return batch;
+    }
+
+    private void complete(Map<LikeKey, Boolean> batch) {
+        batch.forEach((key, liked) -> {
+            Stripe stripe = stripe(key.filmId());
+            synchronized (stripe) {
+                Map<Long, Boolean> users = stripe.pending.get(key.filmId());
+                if (users != null && users.remove(key.userId(), liked)) {
+                    size.decrementAndGet();
+                    if (users.isEmpty()) {
+                        stripe.pending.remove(key.filmId());
+                    }
+                }
+            }
+        });
+    }
+
+    private void writeEach(Map<LikeKey, Boolean> batch) {
+        for (Map.Entry<LikeKey, Boolean> operation : batch.entrySet()) {
+            Map<LikeKey, Boolean> single = Map.of(operation.getKey(), operation.getValue());
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(single));
+            } catch (DataIntegrityViolationException e) {
+                log.error("Операция с лайком пользователя с id = {} фильму id = {} отброшена",
+                        operation.getKey().userId(), operation.getKey().filmId(), e);
+            }
+            complete(single);
+        }
+    }
+
+    private void write(Map<LikeKey, Boolean> batch) {
+        List<FilmLike> likes = new ArrayList<>();
+        List<FilmLike> unlikes = new ArrayList<>();
+        batch.forEach((key, liked) -> {
+            if (liked == likesIndex.containsLike(key.filmId(), key.userId())) {
+                coalescedCounter.increment();
+            } else if (liked) {
+                likes.add(new FilmLike(key.filmId(), key.userId()));
+            } else {
+                unlikes.add(new FilmLike(key.filmId(), key.userId()));
+            }
+        });
+        Map<Long, Long> deltas = new HashMap<>();
+        Map<Long, Long> changes = new HashMap<>();
+        int[] inserted = filmLikeRepository.saveLikes(likes);
+        for (int idx = 0; idx < likes.size(); idx++) {
+            if (inserted[idx] != 0) {
+                FilmLike like = likes.get(idx);
+                deltas.merge(like.getFilmId(), 1L, Long::sum);
+                changes.merge(like.getFilmId(), 1L, Long::sum);
+                synchronized (stripe(like.getFilmId())) {
+                    popularFilmsIndex.likeAdded(like.getFilmId());
+                    likesIndex.likeAdded(like.getFilmId(), like.getUserId());
+                }
+            }
+        }
+        int[] deleted = filmLikeRepository.deleteLikes(unlikes);
+        for (int idx = 0; idx < unlikes.size(); idx++) {
+            if (deleted[idx] != 0) {
+                FilmLike like = unlikes.get(idx);
+                deltas.merge(like.getFilmId(), -1L, Long::sum);
+                changes.merge(like.getFilmId(), 1L, Long::sum);
+                synchronized (stripe(like.getFilmId())) {
+                    popularFilmsIndex.likeRemoved(like.getFilmId());
+                    likesIndex.likeRemoved(like.getFilmId(), like.getUserId());
+                }
+            }
+        }
+        filmLikeRepository.changeLikesCounts(deltas, changes);
+        writtenCounter.increment(likes.size() + unlikes.size());
+        log.debug("Записано лайков: {}, удалено: {}", likes.size(), unlikes.size());
+    }
+
+    private record LikeKey(long filmId, long userId) {
+    }
+
+    private static final class Stripe {
+        private final Map<Long, Map<Long, Boolean>> pending = new HashMap<>();
+    }
+}
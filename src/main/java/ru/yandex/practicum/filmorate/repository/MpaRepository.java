@@ -5,6 +5,8 @@ import ru.yandex.practicum.filmorate.model.Mpa;
 import java.util.List;
 
 public interface MpaRepository {
+    void refresh();
+
     List<Mpa> findAll();
 
     Mpa findById(int id);
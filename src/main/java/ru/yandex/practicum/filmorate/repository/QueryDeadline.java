@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+public final class QueryDeadline implements AutoCloseable {
+    private static final ThreadLocal<QueryDeadline> CURRENT = new ThreadLocal<>();
+
+    private final QueryDeadline previous;
+    private final long deadlineNanos;
+    private final Set<Statement> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    private QueryDeadline(QueryDeadline previous, long deadlineNanos) {
+        this.previous = previous;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static QueryDeadline start(long timeoutNanos) {
+        QueryDeadline previous = CURRENT.get();
+        long deadlineNanos = System.nanoTime() + timeoutNanos;
+        if (previous != null && previous.deadlineNanos - deadlineNanos < 0) {
+            deadlineNanos = previous.deadlineNanos;
+        }
+        QueryDeadline deadline = new QueryDeadline(previous, deadlineNanos);
+        CURRENT.set(deadline);
+        return deadline;
+    }
+
+    static QueryDeadline current() {
+        return CURRENT.get();
+    }
+
+    public Runnable propagate(Runnable task) {
+        return () -> {
+            QueryDeadline outer = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                task.run();
+            } finally {
+                restore(outer);
+            }
+        };
+    }
+
+    long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : running) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                log.debug("Не удалось отменить запрос к базе данных", e);
+            }
+        }
+    }
+
+    static boolean beforeExecute(Statement statement) throws SQLException {
+        QueryDeadline deadline = CURRENT.get();
+        if (deadline == null) {
+            return false;
+        }
+        long remaining = deadline.remainingNanos();
+        if (remaining <= 0) {
+            throw new SQLTimeoutException("Превышено время ожидания ответа базы данных");
+        }
+        int seconds = (int) Math.max(1, (remaining + 999_999_999L) / 1_000_000_000L);
+        int current = statement.getQueryTimeout();
+        if (current == 0 || current > seconds) {
+            statement.setQueryTimeout(seconds);
+        }
+        for (QueryDeadline scope = deadline; scope != null; scope = scope.previous) {
+            scope.running.add(statement);
+            if (scope.cancelled) {
+                afterExecute(statement);
+                throw new SQLTimeoutException("Запрос к базе данных отменен");
+            }
+        }
+        return true;
+    }
+
+    static void afterExecute(Statement statement) {
+        for (QueryDeadline scope = CURRENT.get(); scope != null; scope = scope.previous) {
+            scope.running.remove(statement);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            restore(previous);
+        }
+    }
+
+    private static void restore(QueryDeadline deadline) {
+        if (deadline == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(deadline);
+        }
+    }
+}
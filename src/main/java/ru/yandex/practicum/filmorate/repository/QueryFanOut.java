@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+public class QueryFanOut {
+    private static final String TIMEOUT_MESSAGE = "Превышено время ожидания ответа базы данных";
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final long timeoutNanos;
+    private final ConnectionLimitingDataSource connectionLimit;
+
+    public QueryFanOut(@Qualifier("queryExecutor") ExecutorService executor,
+                       @Value("${filmorate.query.fan-out.max-concurrency:8}") int maxConcurrency,
+                       @Value("${filmorate.query.fan-out.timeout:5s}") Duration timeout,
+                       DataSource dataSource) {
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrency);
+        this.timeoutNanos = timeout.toNanos();
+        this.connectionLimit = connectionLimit(dataSource);
+    }
+
+    public void runAll(List<Runnable> queries) {
+        try (QueryDeadline deadline = QueryDeadline.start(timeoutNanos)) {
+            if (queries.size() < 2 || TransactionSynchronizationManager.isActualTransactionActive()) {
+                queries.forEach(Runnable::run);
+                return;
+            }
+            runConcurrently(queries, deadline);
+        } catch (QueryTimeoutException e) {
+            throw new InternalServerException(TIMEOUT_MESSAGE);
+        }
+    }
+
+    private void runConcurrently(List<Runnable> queries, QueryDeadline deadline) {
+        CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+        List<Task> tasks = new ArrayList<>(queries.size() - 1);
+        List<Runnable> inline = new ArrayList<>();
+        inline.add(queries.getFirst());
+        for (Runnable query : queries.subList(1, queries.size())) {
+            if (tryAcquire()) {
+                Task task = new Task(deadline.propagate(QueryStatistics.propagate(query)));
+                task.future = completion.submit(task);
+                tasks.add(task);
+            } else {
+                inline.add(query);
+            }
+        }
+        try {
+            inline.forEach(Runnable::run);
+            for (int done = 0; done < tasks.size(); done++) {
+                Future<Void> future = completion.poll(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    throw new InternalServerException(TIMEOUT_MESSAGE);
+                }
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            cancel(deadline, tasks);
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new InternalServerException("Не удалось загрузить данные: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            cancel(deadline, tasks);
+            Thread.currentThread().interrupt();
+            throw new InternalServerException("Загрузка данных прервана");
+        } catch (RuntimeException e) {
+            cancel(deadline, tasks);
+            throw e;
+        }
+    }
+
+    private boolean tryAcquire() {
+        if (!permits.tryAcquire()) {
+            return false;
+        }
+        if (connectionLimit != null && !connectionLimit.tryAcquire()) {
+            permits.release();
+            return false;
+        }
+        return true;
+    }
+
+    private void release() {
+        if (connectionLimit != null) {
+            connectionLimit.release();
+        }
+        permits.release();
+    }
+
+    private static void cancel(QueryDeadline deadline, List<Task> tasks) {
+        deadline.cancel();
+        for (Task task : tasks) {
+            task.cancel();
+        }
+    }
+
+    private static ConnectionLimitingDataSource connectionLimit(DataSource dataSource) {
+        try {
+            if (dataSource != null && dataSource.isWrapperFor(ConnectionLimitingDataSource.class)) {
+                return dataSource.unwrap(ConnectionLimitingDataSource.class);
+            }
+        } catch (SQLException e) {
+            log.warn("Не удалось определить ограничение соединений с базой данных", e);
+        }
+        return null;
+    }
+
+    private final class Task implements Callable<Void> {
+        private final Runnable query;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<Void> future;
+
+        private Task(Runnable query) {
+            this.query = connectionLimit == null ? query : connectionLimit.bind(query);
+        }
+
+        @Override
+        public Void call() {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                query.run();
+            } finally {
+                release();
+            }
+            return null;
+        }
+
+        private void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                release();
+            }
+            future.cancel(true);
+        }
+    }
+}
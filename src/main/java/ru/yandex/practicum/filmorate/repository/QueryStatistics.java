@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class QueryStatistics implements AutoCloseable {
+    private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private final QueryStatistics previous;
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+
+    private QueryStatistics(QueryStatistics previous) {
+        this.previous = previous;
+    }
+
+    public static QueryStatistics start() {
+        QueryStatistics statistics = new QueryStatistics(CURRENT.get());
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    public static QueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static Runnable propagate(Runnable task) {
+        QueryStatistics statistics = CURRENT.get();
+        if (statistics == null) {
+            return task;
+        }
+        return () -> {
+            QueryStatistics outer = CURRENT.get();
+            CURRENT.set(statistics);
+            try {
+                task.run();
+            } finally {
+                restore(outer);
+            }
+        };
+    }
+
+    static void record(long elapsedNanos) {
+        for (QueryStatistics statistics = CURRENT.get(); statistics != null; statistics = statistics.previous) {
+            statistics.count.incrementAndGet();
+            statistics.nanos.addAndGet(elapsedNanos);
+        }
+    }
+
+    public int count() {
+        return count.get();
+    }
+
+    public Duration time() {
+        return Duration.ofNanos(nanos.get());
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() == this) {
+            restore(previous);
+        }
+    }
+
+    private static void restore(QueryStatistics statistics) {
+        if (statistics == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(statistics);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+final class StreamingQueries {
+    private static final String H2_LAZY_QUERY_EXECUTION_QUERY = "SET LAZY_QUERY_EXECUTION %s";
+
+    private StreamingQueries() {
+    }
+
+    static <R> R query(JdbcTemplate jdbc, String query, int fetchSize, Object[] params,
+                       ResultSetExtractor<R> extractor) {
+        return jdbc.execute((ConnectionCallback<R>) connection -> {
+            boolean h2 = "H2".equals(connection.getMetaData().getDatabaseProductName());
+            boolean autoCommit = connection.getAutoCommit();
+            boolean readOnly = connection.isReadOnly();
+            if (autoCommit) {
+                connection.setReadOnly(true);
+                connection.setAutoCommit(false);
+            }
+            if (h2) {
+                setLazyQueryExecution(connection, true);
+            }
+            try (PreparedStatement ps = connection
+                    .prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                ps.setFetchSize(fetchSize);
+                for (int idx = 0; idx < params.length; idx++) {
+                    ps.setObject(idx + 1, params[idx]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    return extractor.extractData(rs);
+                }
+            } finally {
+                if (h2) {
+                    setLazyQueryExecution(connection, false);
+                }
+                if (autoCommit) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                    connection.setReadOnly(readOnly);
+                }
+            }
+        });
+    }
+
+    private static void setLazyQueryExecution(Connection connection, boolean enabled) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format(H2_LAZY_QUERY_EXECUTION_QUERY, enabled ? "TRUE" : "FALSE"));
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import ru.yandex.practicum.filmorate.model.EntityVersion;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserRepository {
     List<User> findAll();
 
+    List<User> findAll(boolean withFriends);
+
+    List<User> findPage(long after, int limit, boolean withFriends);
+
+    void streamAll(boolean withFriends, Consumer<User> consumer);
+
     User create(User user);
 
+    List<User> createAll(List<User> users);
+
     User update(User newUser);
 
     User addToFriends(long id, long friendId);
@@ -17,7 +28,11 @@ public interface UserRepository {
 
     List<User> findAllFriends(long id);
 
+    List<EntityVersion> findFriendsVersions(long id);
+
     List<User> findCommonFriends(long id, long otherId);
 
+    List<FriendSuggestion> findFriendSuggestions(long id, int limit);
+
     boolean checkUserExists(long id);
 }
@@ -0,0 +1,294 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSearchField;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    private static final String FILMS_FIND_ALL_TEXT_QUERY = """
+            SELECT "film_id", "name", "description"
+            FROM "films";
+            """;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int EXACT_WEIGHT = 2;
+    private static final int PREFIX_WEIGHT = 1;
+    private static final int TITLE_BOOST = 2;
+    private static final String[] NO_TERMS = new String[0];
+
+    private final JdbcTemplate jdbc;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final Map<FilmSearchField, NavigableMap<String, Postings>> postings = new EnumMap<>(FilmSearchField.class);
+    private final Map<Long, String[][]> termsByFilm = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FilmSearchIndex(JdbcTemplate jdbc, PopularFilmsIndex popularFilmsIndex) {
+        this.jdbc = jdbc;
+        this.popularFilmsIndex = popularFilmsIndex;
+        for (FilmSearchField field : FilmSearchField.values()) {
+            postings.put(field, new TreeMap<>());
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            postings.values().forEach(Map::clear);
+            termsByFilm.clear();
+            jdbc.query(FILMS_FIND_ALL_TEXT_QUERY, rs -> {
+                putFilm(rs.getLong("film_id"), new String[][]{
+                        distinctTerms(rs.getString("name")),
+                        distinctTerms(rs.getString("description"))});
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс фильмов загружен, фильмов: {}, терминов: {}",
+                termsByFilm.size(), postings.get(FilmSearchField.TITLE).size()
+                        + postings.get(FilmSearchField.DESCRIPTION).size());
+    }
+
+    public void addFilm(Film film) {
+        String[][] terms = {distinctTerms(film.getName()), distinctTerms(film.getDescription())};
+        lock.writeLock().lock();
+        try {
+            String[][] previous = putFilm(film.getId(), terms);
+            RollbackCompensation.register(() -> restoreFilm(film.getId(), previous));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<ScoredId> search(String query, Set<FilmSearchField> fields, int limit) {
+        String[] queryTerms = distinctTerms(query);
+        if (queryTerms.length == 0 || fields.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Long> relevance;
+        lock.readLock().lock();
+        try {
+            List<List<WeightedPostings>> matches = new ArrayList<>(queryTerms.length);
+            for (String term : queryTerms) {
+                List<WeightedPostings> termMatches = match(term, fields);
+                if (termMatches.isEmpty()) {
+                    return List.of();
+                }
+                matches.add(termMatches);
+            }
+            matches.sort(Comparator.comparingLong(FilmSearchIndex::size));
+            relevance = score(matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long[] ids = relevance.keySet().stream().mapToLong(Long::longValue).toArray();
+        long[] likes = popularFilmsIndex.getLikesCounts(ids);
+        PriorityQueue<Ranked> top = new PriorityQueue<>(Math.min(limit, ids.length) + 1, Comparator
+                .comparingDouble(Ranked::score)
+                .thenComparing(Comparator.comparingLong(Ranked::id).reversed()));
+        for (int idx = 0; idx < ids.length; idx++) {
+            top.add(new Ranked(ids[idx], relevance.get(ids[idx]) * (1 + Math.log1p(likes[idx]))));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<ScoredId> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            Ranked ranked = top.poll();
+            result.add(new ScoredId(ranked.id(), relevance.get(ranked.id())));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_TERMS;
+        }
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+        for (int idx = 0; idx <= text.length(); idx++) {
+            char ch = idx < text.length() ? text.charAt(idx) : ' ';
+            if (Character.isLetterOrDigit(ch)) {
+                term.append(normalize(ch));
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        return terms.toArray(NO_TERMS);
+    }
+
+    private static String[] distinctTerms(String text) {
+        return Arrays.stream(tokenize(text))
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private static char normalize(char ch) {
+        char lower = Character.toLowerCase(ch);
+        return lower == 'ё' ? 'е' : lower;
+    }
+
+    private List<WeightedPostings> match(String term, Set<FilmSearchField> fields) {
+        List<WeightedPostings> matches = new ArrayList<>();
+        for (FilmSearchField field : fields) {
+            int boost = field == FilmSearchField.TITLE ? TITLE_BOOST : 1;
+            NavigableMap<String, Postings> fieldPostings = postings.get(field);
+            Postings exact = fieldPostings.get(term);
+            if (exact != null) {
+                matches.add(new WeightedPostings(exact, EXACT_WEIGHT * boost));
+            }
+            if (term.length() >= MIN_PREFIX_LENGTH) {
+                for (Postings prefixed : fieldPostings.subMap(term, false, term + Character.MAX_VALUE, false)
+                        .values()) {
+                    matches.add(new WeightedPostings(prefixed, PREFIX_WEIGHT * boost));
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static Map<Long, Long> score(List<List<WeightedPostings>> matches) {
+        Map<Long, Long> candidates = new HashMap<>();
+        for (WeightedPostings match : matches.getFirst()) {
+            for (int idx = 0; idx < match.postings().size; idx++) {
+                candidates.merge(match.postings().ids[idx], (long) match.weight(), Long::max);
+            }
+        }
+        for (List<WeightedPostings> termMatches : matches.subList(1, matches.size())) {
+            Map<Long, Long> termScores = HashMap.newHashMap(candidates.size());
+            if (candidates.size() * (long) termMatches.size() < size(termMatches)) {
+                for (Long id : candidates.keySet()) {
+                    for (WeightedPostings match : termMatches) {
+                        if (match.postings().contains(id)) {
+                            termScores.merge(id, (long) match.weight(), Long::max);
+                        }
+                    }
+                }
+            } else {
+                for (WeightedPostings match : termMatches) {
+                    for (int idx = 0; idx < match.postings().size; idx++) {
+                        long id = match.postings().ids[idx];
+                        if (candidates.containsKey(id)) {
+                            termScores.merge(id, (long) match.weight(), Long::max);
+                        }
+                    }
+                }
+            }
+            Map<Long, Long> previous = candidates;
+            termScores.replaceAll((id, score) -> score + previous.get(id));
+            candidates = termScores;
+            if (candidates.isEmpty()) {
+                break;
+            }
+        }
+        return candidates;
+    }
+
+    private static long size(List<WeightedPostings> matches) {
+        long size = 0;
+        for (WeightedPostings match : matches) {
+            size += match.postings().size;
+        }
+        return size;
+    }
+
+    private String[][] putFilm(long filmId, String[][] terms) {
+        String[][] previous = termsByFilm.put(filmId, terms);
+        if (previous != null) {
+            index(filmId, previous, false);
+        }
+        index(filmId, terms, true);
+        return previous;
+    }
+
+    private void restoreFilm(long filmId, String[][] previous) {
+        lock.writeLock().lock();
+        try {
+            String[][] current = termsByFilm.remove(filmId);
+            if (current != null) {
+                index(filmId, current, false);
+            }
+            if (previous != null) {
+                putFilm(filmId, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(long filmId, String[][] terms, boolean add) {
+        FilmSearchField[] fields = FilmSearchField.values();
+        for (int field = 0; field < fields.length; field++) {
+            NavigableMap<String, Postings> fieldPostings = postings.get(fields[field]);
+            for (String term : terms[field]) {
+                if (add) {
+                    fieldPostings.computeIfAbsent(term, key -> new Postings()).add(filmId);
+                } else {
+                    Postings termPostings = fieldPostings.get(term);
+                    if (termPostings != null && termPostings.remove(filmId) && termPostings.size == 0) {
+                        fieldPostings.remove(term);
+                    }
+                }
+            }
+        }
+    }
+
+    private record WeightedPostings(Postings postings, int weight) {
+    }
+
+    private record Ranked(long id, double score) {
+    }
+
+    private static final class Postings {
+        private long[] ids = new long[2];
+        private int size;
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] < id) {
+                grow();
+                ids[size++] = id;
+                return;
+            }
+            int idx = Arrays.binarySearch(ids, 0, size, id);
+            if (idx >= 0) {
+                return;
+            }
+            grow();
+            int insertAt = -idx - 1;
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int idx = Arrays.binarySearch(ids, 0, size, id);
+            if (idx < 0) {
+                return false;
+            }
+            System.arraycopy(ids, idx + 1, ids, idx, size - idx - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+    }
+}
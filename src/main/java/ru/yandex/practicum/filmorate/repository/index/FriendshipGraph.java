@@ -0,0 +1,267 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Friend;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class FriendshipGraph {
+    private static final String USERS_FIND_ALL_IDS_QUERY = """
+            SELECT "user_id"
+            FROM "users";
+            """;
+    private static final String FRIENDS_FIND_ALL_QUERY = """
+            SELECT "user_id", "friend_id", "friendship_status_id"
+            FROM "friends"
+            ORDER BY "user_id", "friend_id";
+            """;
+    private static final int[] NO_STATUSES = new int[0];
+    private static final Node EMPTY_NODE = new Node(SortedLongArrays.EMPTY, NO_STATUSES, SortedLongArrays.EMPTY);
+
+    private final JdbcTemplate jdbc;
+    private final Map<Long, Node> nodes = new ConcurrentHashMap<>();
+
+    public FriendshipGraph(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Long, NodeBuilder> builders = new HashMap<>();
+        jdbc.query(USERS_FIND_ALL_IDS_QUERY, rs -> {
+            builders.put(rs.getLong("user_id"), new NodeBuilder());
+        });
+        jdbc.query(FRIENDS_FIND_ALL_QUERY, rs -> {
+            long userId = rs.getLong("user_id");
+            long friendId = rs.getLong("friend_id");
+            builders.computeIfAbsent(userId, id -> new NodeBuilder())
+                    .addFriend(friendId, rs.getInt("friendship_status_id"));
+            builders.computeIfAbsent(friendId, id -> new NodeBuilder())
+                    .addFollower(userId);
+        });
+        Map<Long, Node> loaded = HashMap.newHashMap(builders.size());
+        long edges = 0;
+        for (Map.Entry<Long, NodeBuilder> entry : builders.entrySet()) {
+            Node node = entry.getValue().build();
+            loaded.put(entry.getKey(), node);
+            edges += node.friends().length;
+        }
+        synchronized (this) {
+            nodes.clear();
+            nodes.putAll(loaded);
+        }
+        log.info("Граф дружбы загружен, пользователей: {}, связей: {}", loaded.size(), edges);
+    }
+
+    public boolean containsUser(long userId) {
+        return nodes.containsKey(userId);
+    }
+
+    public long[] friendsOf(long userId) {
+        return node(userId).friends().clone();
+    }
+
+    public long[] neighboursOf(long userId) {
+        return node(userId).neighbours().clone();
+    }
+
+    public Set<Friend> friendsWithStatus(long userId) {
+        Node node = node(userId);
+        Set<Friend> friends = HashSet.newHashSet(node.friends().length);
+        for (int idx = 0; idx < node.friends().length; idx++) {
+            friends.add(new Friend(node.friends()[idx], node.statuses()[idx]));
+        }
+        return friends;
+    }
+
+    public long[] commonFriends(long userId, long otherId) {
+        return intersect(node(userId).neighbours(), node(otherId).neighbours());
+    }
+
+    public List<ScoredId> suggestFriends(long userId, int limit) {
+        long[] neighbours = node(userId).neighbours();
+        long[][] candidates = new long[neighbours.length][];
+        for (int idx = 0; idx < neighbours.length; idx++) {
+            candidates[idx] = node(neighbours[idx]).neighbours();
+        }
+        return SortedArrayScoring.top(candidates, null, SortedLongArrays.withId(neighbours, userId), limit);
+    }
+
+    public synchronized void addUser(long userId) {
+        if (nodes.putIfAbsent(userId, EMPTY_NODE) == null) {
+            RollbackCompensation.register(() -> removeUser(userId));
+        }
+    }
+
+    public synchronized void addFriend(long userId, long friendId, int status) {
+        if (putFriend(userId, friendId, status)) {
+            RollbackCompensation.register(() -> removeFriendEdge(userId, friendId));
+        }
+    }
+
+    public synchronized void removeFriend(long userId, long friendId) {
+        Node node = node(userId);
+        int idx = Arrays.binarySearch(node.friends(), friendId);
+        if (idx < 0) {
+            return;
+        }
+        int status = node.statuses()[idx];
+        removeFriendEdge(userId, friendId);
+        RollbackCompensation.register(() -> putFriend(userId, friendId, status));
+    }
+
+    static long[] intersect(long[] first, long[] second) {
+        long[] small = first.length <= second.length ? first : second;
+        long[] large = small == first ? second : first;
+        long[] common = new long[small.length];
+        int size = 0;
+        if ((long) small.length * (64 - Long.numberOfLeadingZeros(large.length)) < small.length + large.length) {
+            for (long id : small) {
+                if (Arrays.binarySearch(large, id) >= 0) {
+                    common[size++] = id;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    common[size++] = small[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return Arrays.copyOf(common, size);
+    }
+
+    private Node node(long userId) {
+        return nodes.getOrDefault(userId, EMPTY_NODE);
+    }
+
+    private synchronized void removeUser(long userId) {
+        nodes.remove(userId);
+    }
+
+    private synchronized boolean putFriend(long userId, long friendId, int status) {
+        Node user = node(userId);
+        int idx = Arrays.binarySearch(user.friends(), friendId);
+        if (idx >= 0) {
+            return false;
+        }
+        int insertAt = -idx - 1;
+        nodes.put(userId, new Node(
+                SortedLongArrays.insertAt(user.friends(), insertAt, friendId),
+                insertAt(user.statuses(), insertAt, status),
+                SortedLongArrays.withId(user.neighbours(), friendId)
+        ));
+        Node friend = node(friendId);
+        nodes.put(friendId, new Node(
+                friend.friends(),
+                friend.statuses(),
+                SortedLongArrays.withId(friend.neighbours(), userId)
+        ));
+        return true;
+    }
+
+    private synchronized void removeFriendEdge(long userId, long friendId) {
+        Node user = node(userId);
+        int idx = Arrays.binarySearch(user.friends(), friendId);
+        if (idx < 0) {
+            return;
+        }
+        Node friend = node(friendId);
+        boolean mutual = Arrays.binarySearch(friend.friends(), userId) >= 0;
+        nodes.put(userId, new Node(
+                SortedLongArrays.removeAt(user.friends(), idx),
+                removeAt(user.statuses(), idx),
+                mutual ? user.neighbours() : SortedLongArrays.withoutId(user.neighbours(), friendId)
+        ));
+        if (!mutual) {
+            nodes.put(friendId, new Node(
+                    friend.friends(),
+                    friend.statuses(),
+                    SortedLongArrays.withoutId(friend.neighbours(), userId)
+            ));
+        }
+    }
+
+    private static int[] insertAt(int[] values, int idx, int value) {
+        int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, idx);
+        result[idx] = value;
+        System.arraycopy(values, idx, result, idx + 1, values.length - idx);
+        return result;
+    }
+
+    private static int[] removeAt(int[] values, int idx) {
+        int[] result = new int[values.length - 1];
+        System.arraycopy(values, 0, result, 0, idx);
+        System.arraycopy(values, idx + 1, result, idx, values.length - idx - 1);
+        return result;
+    }
+
+    private record Node(long[] friends, int[] statuses, long[] neighbours) {
+    }
+
+    private static final class NodeBuilder {
+        private long[] friends = SortedLongArrays.EMPTY;
+        private int[] statuses = NO_STATUSES;
+        private int friendsCount;
+        private long[] followers = SortedLongArrays.EMPTY;
+        private int followersCount;
+
+        void addFriend(long friendId, int status) {
+            if (friendsCount == friends.length) {
+                friends = Arrays.copyOf(friends, Math.max(4, friendsCount * 2));
+                statuses = Arrays.copyOf(statuses, friends.length);
+            }
+            friends[friendsCount] = friendId;
+            statuses[friendsCount] = status;
+            friendsCount++;
+        }
+
+        void addFollower(long userId) {
+            if (followersCount == followers.length) {
+                followers = Arrays.copyOf(followers, Math.max(4, followersCount * 2));
+            }
+            followers[followersCount++] = userId;
+        }
+
+        Node build() {
+            if (friendsCount == 0 && followersCount == 0) {
+                return EMPTY_NODE;
+            }
+            long[] sortedFriends = Arrays.copyOf(friends, friendsCount);
+            long[] sortedFollowers = Arrays.copyOf(followers, followersCount);
+            Arrays.sort(sortedFollowers);
+            long[] neighbours = new long[friendsCount + followersCount];
+            int size = 0;
+            int i = 0;
+            int j = 0;
+            while (i < sortedFriends.length || j < sortedFollowers.length) {
+                long next;
+                if (j == sortedFollowers.length
+                        || i < sortedFriends.length && sortedFriends[i] <= sortedFollowers[j]) {
+                    next = sortedFriends[i++];
+                } else {
+                    next = sortedFollowers[j++];
+                }
+                if (size == 0 || neighbours[size - 1] != next) {
+                    neighbours[size++] = next;
+                }
+            }
+            return new Node(sortedFriends, Arrays.copyOf(statuses, friendsCount), Arrays.copyOf(neighbours, size));
+        }
+    }
+}
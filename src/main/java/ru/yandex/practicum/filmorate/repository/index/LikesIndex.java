@@ -0,0 +1,172 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class LikesIndex {
+    private static final String LIKES_FIND_ALL_QUERY = """
+            SELECT "film_id", "user_id"
+            FROM "likes"
+            ORDER BY "film_id", "user_id";
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final int neighboursLimit;
+    private final boolean neighboursCacheEnabled;
+    private final Map<Long, long[]> likersByFilm = new ConcurrentHashMap<>();
+    private final Map<Long, long[]> filmsByUser = new ConcurrentHashMap<>();
+    private final Map<Long, List<ScoredId>> neighboursByUser = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public LikesIndex(JdbcTemplate jdbc,
+                      @Value("${filmorate.recommendations.neighbours:50}") int neighboursLimit,
+                      @Value("${filmorate.recommendations.neighbours-cache.enabled:false}")
+                      boolean neighboursCacheEnabled) {
+        this.jdbc = jdbc;
+        this.neighboursLimit = neighboursLimit;
+        this.neighboursCacheEnabled = neighboursCacheEnabled;
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Long, List<Long>> likers = new HashMap<>();
+        Map<Long, List<Long>> films = new HashMap<>();
+        jdbc.query(LIKES_FIND_ALL_QUERY, rs -> {
+            long filmId = rs.getLong("film_id");
+            long userId = rs.getLong("user_id");
+            likers.computeIfAbsent(filmId, id -> new ArrayList<>()).add(userId);
+            films.computeIfAbsent(userId, id -> new ArrayList<>()).add(filmId);
+        });
+        synchronized (this) {
+            likersByFilm.clear();
+            filmsByUser.clear();
+            neighboursByUser.clear();
+            version.incrementAndGet();
+            likers.forEach((filmId, ids) -> likersByFilm.put(filmId, toSortedArray(ids)));
+            films.forEach((userId, ids) -> filmsByUser.put(userId, toSortedArray(ids)));
+        }
+        log.info("Индекс лайков загружен, фильмов: {}, пользователей: {}", likers.size(), films.size());
+    }
+
+    public synchronized void likeAdded(long filmId, long userId) {
+        if (putLike(filmId, userId)) {
+            RollbackCompensation.register(() -> removeLike(filmId, userId));
+        }
+    }
+
+    public synchronized void likeRemoved(long filmId, long userId) {
+        if (removeLike(filmId, userId)) {
+            RollbackCompensation.register(() -> putLike(filmId, userId));
+        }
+    }
+
+    public boolean containsLike(long filmId, long userId) {
+        return Arrays.binarySearch(likersByFilm.getOrDefault(filmId, SortedLongArrays.EMPTY), userId) >= 0;
+    }
+
+    public Set<Long> findLikers(long filmId) {
+        long[] likers = likersByFilm.getOrDefault(filmId, SortedLongArrays.EMPTY);
+        Set<Long> result = HashSet.newHashSet(likers.length);
+        for (long userId : likers) {
+            result.add(userId);
+        }
+        return result;
+    }
+
+    public List<ScoredId> recommendFilms(long userId, int limit) {
+        long[] ownFilms = filmsByUser.getOrDefault(userId, SortedLongArrays.EMPTY);
+        if (ownFilms.length == 0) {
+            return List.of();
+        }
+        List<ScoredId> neighbours = findNeighbours(userId, ownFilms);
+        long[][] films = new long[neighbours.size()][];
+        long[] weights = new long[neighbours.size()];
+        for (int idx = 0; idx < neighbours.size(); idx++) {
+            films[idx] = filmsByUser.getOrDefault(neighbours.get(idx).id(), SortedLongArrays.EMPTY);
+            weights[idx] = neighbours.get(idx).score();
+        }
+        return SortedArrayScoring.top(films, weights, ownFilms, limit);
+    }
+
+    private List<ScoredId> findNeighbours(long userId, long[] ownFilms) {
+        if (!neighboursCacheEnabled) {
+            return computeNeighbours(userId, ownFilms);
+        }
+        List<ScoredId> cached = neighboursByUser.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long computedAt = version.get();
+        List<ScoredId> neighbours = computeNeighbours(userId, ownFilms);
+        synchronized (this) {
+            if (version.get() == computedAt) {
+                neighboursByUser.put(userId, neighbours);
+            }
+        }
+        return neighbours;
+    }
+
+    private List<ScoredId> computeNeighbours(long userId, long[] ownFilms) {
+        long[][] likers = new long[ownFilms.length][];
+        for (int idx = 0; idx < ownFilms.length; idx++) {
+            likers[idx] = likersByFilm.getOrDefault(ownFilms[idx], SortedLongArrays.EMPTY);
+        }
+        return SortedArrayScoring.top(likers, null, new long[]{userId}, neighboursLimit);
+    }
+
+    private synchronized boolean putLike(long filmId, long userId) {
+        long[] likers = likersByFilm.getOrDefault(filmId, SortedLongArrays.EMPTY);
+        int idx = Arrays.binarySearch(likers, userId);
+        if (idx >= 0) {
+            return false;
+        }
+        likersByFilm.put(filmId, SortedLongArrays.insertAt(likers, -idx - 1, userId));
+        filmsByUser.put(userId, SortedLongArrays.withId(
+                filmsByUser.getOrDefault(userId, SortedLongArrays.EMPTY),
+                filmId
+        ));
+        invalidateNeighbours(filmId, userId);
+        return true;
+    }
+
+    private synchronized boolean removeLike(long filmId, long userId) {
+        long[] likers = likersByFilm.getOrDefault(filmId, SortedLongArrays.EMPTY);
+        int idx = Arrays.binarySearch(likers, userId);
+        if (idx < 0) {
+            return false;
+        }
+        likersByFilm.put(filmId, SortedLongArrays.removeAt(likers, idx));
+        filmsByUser.put(userId, SortedLongArrays.withoutId(
+                filmsByUser.getOrDefault(userId, SortedLongArrays.EMPTY),
+                filmId
+        ));
+        invalidateNeighbours(filmId, userId);
+        return true;
+    }
+
+    private void invalidateNeighbours(long filmId, long userId) {
+        version.incrementAndGet();
+        if (!neighboursCacheEnabled || neighboursByUser.isEmpty()) {
+            return;
+        }
+        neighboursByUser.remove(userId);
+        for (long likerId : likersByFilm.getOrDefault(filmId, SortedLongArrays.EMPTY)) {
+            neighboursByUser.remove(likerId);
+        }
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        long[] values = ids.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(values);
+        return values;
+    }
+}
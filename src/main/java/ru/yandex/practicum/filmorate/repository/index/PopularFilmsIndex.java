@@ -0,0 +1,251 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.*;
+
+@Slf4j
+@Component
+public class PopularFilmsIndex {
+    private static final String FILMS_FIND_ALL_QUERY = """
+            SELECT
+                f."film_id" AS "film_id",
+                f."name" AS "name",
+                f."description" AS "description",
+                f."release_date" AS "release_date",
+                f."duration" AS "duration",
+                f."version" AS "version",
+                r."mpa_id" AS "mpa_id",
+                r."mpa" AS "mpa",
+                f."likes_count" AS "likes_count"
+            FROM "films" AS f
+            LEFT JOIN "mpas" AS r ON  f."mpa_id" = r."mpa_id";
+            """;
+    private static final String FILMS_GENRE_FIND_ALL_QUERY = """
+            SELECT fg."film_id", g."genre_id", g."genre"
+            FROM "films_genre" AS fg
+            JOIN "genres" AS g ON fg."genre_id" = g."genre_id"
+            ORDER BY fg."film_id", g."genre_id";
+            """;
+    private static final Partition ALL_FILMS = new Partition(null, null);
+    private static final Comparator<Rank> RANK_ORDER = Comparator
+            .comparingLong(Rank::likes)
+            .reversed()
+            .thenComparingLong(Rank::filmId);
+
+    private final JdbcTemplate jdbc;
+    private final RowMapper<Film> mapper;
+    private final Map<Long, Film> films = new HashMap<>();
+    private final Map<Long, Rank> ranks = new HashMap<>();
+    private final Map<Partition, NavigableSet<Rank>> rankings = new HashMap<>();
+
+    public PopularFilmsIndex(JdbcTemplate jdbc, RowMapper<Film> mapper) {
+        this.jdbc = jdbc;
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Long, Film> loadedFilms = new HashMap<>();
+        Map<Long, Long> loadedLikes = new HashMap<>();
+        jdbc.query(FILMS_FIND_ALL_QUERY, rs -> {
+            Film film = mapper.mapRow(rs, rs.getRow());
+            film.setGenres(new LinkedHashSet<>());
+            loadedFilms.put(film.getId(), film);
+            loadedLikes.put(film.getId(), rs.getLong("likes_count"));
+        });
+        Map<Long, Set<Genre>> loadedGenres = new HashMap<>();
+        jdbc.query(FILMS_GENRE_FIND_ALL_QUERY, rs -> {
+            loadedGenres.computeIfAbsent(rs.getLong("film_id"), id -> new LinkedHashSet<>())
+                    .add(new Genre(rs.getInt("genre_id"), rs.getString("genre")));
+        });
+        loadedGenres.forEach((id, genres) -> {
+            Film film = loadedFilms.get(id);
+            if (film != null) {
+                film.setGenres(genres);
+            }
+        });
+        synchronized (this) {
+            films.clear();
+            ranks.clear();
+            rankings.clear();
+            loadedFilms.forEach((id, film) -> putFilm(film, loadedLikes.get(id)));
+        }
+        log.info("Рейтинг популярных фильмов загружен, фильмов: {}, разделов: {}",
+                loadedFilms.size(), rankings.size());
+    }
+
+    public synchronized Optional<Film> findFilm(long filmId) {
+        return Optional.ofNullable(films.get(filmId))
+                .map(PopularFilmsIndex::snapshot);
+    }
+
+    public synchronized boolean containsFilm(long filmId) {
+        return films.containsKey(filmId);
+    }
+
+    public synchronized long getLikesCount(long filmId) {
+        Rank rank = ranks.get(filmId);
+        return rank == null ? 0 : rank.likes();
+    }
+
+    public synchronized long[] getLikesCounts(long[] filmIds) {
+        long[] likes = new long[filmIds.length];
+        for (int idx = 0; idx < filmIds.length; idx++) {
+            Rank rank = ranks.get(filmIds[idx]);
+            likes[idx] = rank == null ? 0 : rank.likes();
+        }
+        return likes;
+    }
+
+    public synchronized void addFilm(Film film) {
+        Film previous = films.get(film.getId());
+        Rank rank = ranks.get(film.getId());
+        putFilm(snapshot(film), rank == null ? 0 : rank.likes());
+        RollbackCompensation.register(() -> {
+            if (previous == null) {
+                removeFilm(film.getId());
+            } else {
+                restoreFilm(previous);
+            }
+        });
+    }
+
+    public synchronized void likeAdded(long filmId) {
+        changeLikes(filmId, 1, 1);
+        RollbackCompensation.register(() -> changeLikes(filmId, -1, -1));
+    }
+
+    public synchronized void likeRemoved(long filmId) {
+        changeLikes(filmId, -1, 1);
+        RollbackCompensation.register(() -> changeLikes(filmId, 1, -1));
+    }
+
+    public List<Film> getTop(long count) {
+        return getTop(count, null, null);
+    }
+
+    public synchronized List<Film> getTop(long count, Integer genreId, Integer year) {
+        NavigableSet<Rank> ranking = ranking(genreId, year);
+        List<Film> top = new ArrayList<>((int) Math.min(count, ranking.size()));
+        Iterator<Rank> iterator = ranking.iterator();
+        while (top.size() < count && iterator.hasNext()) {
+            top.add(snapshot(films.get(iterator.next().filmId())));
+        }
+        return top;
+    }
+
+    public synchronized List<EntityVersion> getTopVersions(long count, Integer genreId, Integer year) {
+        NavigableSet<Rank> ranking = ranking(genreId, year);
+        List<EntityVersion> top = new ArrayList<>((int) Math.min(count, ranking.size()));
+        Iterator<Rank> iterator = ranking.iterator();
+        while (top.size() < count && iterator.hasNext()) {
+            long filmId = iterator.next().filmId();
+            top.add(new EntityVersion(filmId, films.get(filmId).getVersion()));
+        }
+        return top;
+    }
+
+    private NavigableSet<Rank> ranking(Integer genreId, Integer year) {
+        return rankings.getOrDefault(new Partition(genreId, year), Collections.emptyNavigableSet());
+    }
+
+    private void putFilm(Film film, long likes) {
+        Film previous = films.put(film.getId(), film);
+        Rank previousRank = ranks.put(film.getId(), new Rank(film.getId(), likes));
+        if (previous != null) {
+            for (Partition partition : partitions(previous)) {
+                removeRank(partition, previousRank);
+            }
+        }
+        for (Partition partition : partitions(film)) {
+            rankings.computeIfAbsent(partition, key -> new TreeSet<>(RANK_ORDER))
+                    .add(ranks.get(film.getId()));
+        }
+    }
+
+    private synchronized void restoreFilm(Film film) {
+        Rank rank = ranks.get(film.getId());
+        putFilm(film, rank == null ? 0 : rank.likes());
+    }
+
+    private synchronized void removeFilm(long filmId) {
+        Film film = films.remove(filmId);
+        Rank rank = ranks.remove(filmId);
+        if (film != null) {
+            for (Partition partition : partitions(film)) {
+                removeRank(partition, rank);
+            }
+        }
+    }
+
+    private synchronized void changeLikes(long filmId, long likesDelta, long versionDelta) {
+        Rank rank = ranks.get(filmId);
+        if (rank == null) {
+            return;
+        }
+        Rank changed = new Rank(filmId, Math.max(0, rank.likes() + likesDelta));
+        ranks.put(filmId, changed);
+        Film film = snapshot(films.get(filmId));
+        film.setVersion(film.getVersion() + versionDelta);
+        films.put(filmId, film);
+        for (Partition partition : partitions(film)) {
+            NavigableSet<Rank> ranking = rankings.get(partition);
+            ranking.remove(rank);
+            ranking.add(changed);
+        }
+    }
+
+    private void removeRank(Partition partition, Rank rank) {
+        NavigableSet<Rank> ranking = rankings.get(partition);
+        if (ranking != null) {
+            ranking.remove(rank);
+            if (ranking.isEmpty() && !partition.equals(ALL_FILMS)) {
+                rankings.remove(partition);
+            }
+        }
+    }
+
+    private static List<Partition> partitions(Film film) {
+        int year = film.getReleaseDate().getYear();
+        List<Partition> partitions = new ArrayList<>(2 + 2 * film.getGenres().size());
+        partitions.add(ALL_FILMS);
+        partitions.add(new Partition(null, year));
+        for (Genre genre : film.getGenres()) {
+            partitions.add(new Partition(genre.getId(), null));
+            partitions.add(new Partition(genre.getId(), year));
+        }
+        return partitions;
+    }
+
+    private static Film snapshot(Film film) {
+        Set<Genre> genres = new LinkedHashSet<>();
+        for (Genre genre : film.getGenres()) {
+            genres.add(new Genre(genre.getId(), genre.getName()));
+        }
+        return Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .mpa(new Mpa(film.getMpa().getId(), film.getMpa().getName()))
+                .genres(genres)
+                .version(film.getVersion())
+                .build();
+    }
+
+    private record Rank(long filmId, long likes) {
+    }
+
+    private record Partition(Integer genreId, Integer year) {
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+final class RollbackCompensation implements TransactionSynchronization {
+    private final Deque<Runnable> undoActions = new ArrayDeque<>();
+
+    private RollbackCompensation() {
+    }
+
+    static void register(Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        RollbackCompensation compensation = TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(RollbackCompensation.class::isInstance)
+                .map(RollbackCompensation.class::cast)
+                .findFirst()
+                .orElseGet(() -> {
+                    RollbackCompensation created = new RollbackCompensation();
+                    TransactionSynchronizationManager.registerSynchronization(created);
+                    return created;
+                });
+        compensation.undoActions.push(undo);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        if (status == STATUS_ROLLED_BACK) {
+            undoActions.forEach(Runnable::run);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+public record ScoredId(long id, long score) {
+}
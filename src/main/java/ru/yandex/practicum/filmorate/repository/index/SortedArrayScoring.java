@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+final class SortedArrayScoring {
+    static final int PARALLEL_THRESHOLD = 65_536;
+    static final Comparator<ScoredId> BEST_FIRST = Comparator
+            .comparingLong(ScoredId::score)
+            .reversed()
+            .thenComparingLong(ScoredId::id);
+
+    private SortedArrayScoring() {
+    }
+
+    static List<ScoredId> top(long[][] arrays, long[] weights, long[] excluded, int limit) {
+        long from = Long.MAX_VALUE;
+        long to = Long.MIN_VALUE;
+        long work = 0;
+        for (long[] array : arrays) {
+            if (array.length > 0) {
+                from = Math.min(from, array[0]);
+                to = Math.max(to, array[array.length - 1]);
+                work += array.length;
+            }
+        }
+        if (work == 0 || limit <= 0) {
+            return List.of();
+        }
+        ScoreTask task = new ScoreTask(arrays, weights, excluded, limit, from, to + 1);
+        PriorityQueue<ScoredId> top = work <= PARALLEL_THRESHOLD
+                ? task.compute()
+                : ForkJoinPool.commonPool().invoke(task);
+        List<ScoredId> result = new ArrayList<>(top);
+        result.sort(BEST_FIRST);
+        return result;
+    }
+
+    private static final class ScoreTask extends RecursiveTask<PriorityQueue<ScoredId>> {
+        private final long[][] arrays;
+        private final long[] weights;
+        private final long[] excluded;
+        private final int limit;
+        private final long from;
+        private final long to;
+
+        ScoreTask(long[][] arrays, long[] weights, long[] excluded, int limit, long from, long to) {
+            this.arrays = arrays;
+            this.weights = weights;
+            this.excluded = excluded;
+            this.limit = limit;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected PriorityQueue<ScoredId> compute() {
+            if (to - from > 1 && work() > PARALLEL_THRESHOLD) {
+                long middle = from + (to - from) / 2;
+                ScoreTask left = new ScoreTask(arrays, weights, excluded, limit, from, middle);
+                ScoreTask right = new ScoreTask(arrays, weights, excluded, limit, middle, to);
+                left.fork();
+                PriorityQueue<ScoredId> top = right.compute();
+                for (ScoredId scored : left.join()) {
+                    offer(top, scored);
+                }
+                return top;
+            }
+            PriorityQueue<ScoredId> top = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+            SortedArraysMerge merge = new SortedArraysMerge(arrays, weights, from, to);
+            int skip = SortedLongArrays.lowerBound(excluded, from);
+            while (merge.hasNext()) {
+                long id = merge.head();
+                long score = merge.skipEqual();
+                while (skip < excluded.length && excluded[skip] < id) {
+                    skip++;
+                }
+                if (skip < excluded.length && excluded[skip] == id) {
+                    continue;
+                }
+                if (top.size() < limit || score > top.peek().score()) {
+                    offer(top, new ScoredId(id, score));
+                }
+            }
+            return top;
+        }
+
+        private long work() {
+            long work = 0;
+            for (long[] array : arrays) {
+                work += SortedLongArrays.lowerBound(array, to) - SortedLongArrays.lowerBound(array, from);
+            }
+            return work;
+        }
+
+        private void offer(PriorityQueue<ScoredId> top, ScoredId scored) {
+            top.add(scored);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+    }
+}
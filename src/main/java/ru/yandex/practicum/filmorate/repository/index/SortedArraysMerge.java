@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+final class SortedArraysMerge {
+    private final long[][] arrays;
+    private final long[] weights;
+    private final int[] positions;
+    private final int[] ends;
+    private final int[] heap;
+    private int heapSize;
+
+    SortedArraysMerge(long[][] arrays, long[] weights, long from, long to) {
+        this.arrays = arrays;
+        this.weights = weights;
+        this.positions = new int[arrays.length];
+        this.ends = new int[arrays.length];
+        this.heap = new int[arrays.length];
+        for (int idx = 0; idx < arrays.length; idx++) {
+            positions[idx] = SortedLongArrays.lowerBound(arrays[idx], from);
+            ends[idx] = SortedLongArrays.lowerBound(arrays[idx], to);
+            if (positions[idx] < ends[idx]) {
+                heap[heapSize++] = idx;
+            }
+        }
+        for (int idx = heapSize / 2 - 1; idx >= 0; idx--) {
+            siftDown(idx);
+        }
+    }
+
+    boolean hasNext() {
+        return heapSize > 0;
+    }
+
+    long head() {
+        return value(heap[0]);
+    }
+
+    long skipEqual() {
+        long head = head();
+        long weight = 0;
+        while (heapSize > 0 && value(heap[0]) == head) {
+            int array = heap[0];
+            weight += weights == null ? 1 : weights[array];
+            if (++positions[array] == ends[array]) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(0);
+        }
+        return weight;
+    }
+
+    private long value(int array) {
+        return arrays[array][positions[array]];
+    }
+
+    private void siftDown(int idx) {
+        while (true) {
+            int smallest = idx;
+            int left = 2 * idx + 1;
+            int right = left + 1;
+            if (left < heapSize && value(heap[left]) < value(heap[smallest])) {
+                smallest = left;
+            }
+            if (right < heapSize && value(heap[right]) < value(heap[smallest])) {
+                smallest = right;
+            }
+            if (smallest == idx) {
+                return;
+            }
+            int swap = heap[idx];
+            heap[idx] = heap[smallest];
+            heap[smallest] = swap;
+            idx = smallest;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.repository.index;
+
+import java.util.Arrays;
+
+final class SortedLongArrays {
+    static final long[] EMPTY = new long[0];
+
+    private SortedLongArrays() {
+    }
+
+    static int lowerBound(long[] values, long key) {
+        int idx = Arrays.binarySearch(values, key);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+
+    static long[] withId(long[] ids, long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        return idx >= 0 ? ids : insertAt(ids, -idx - 1, id);
+    }
+
+    static long[] withoutId(long[] ids, long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        return idx < 0 ? ids : removeAt(ids, idx);
+    }
+
+    static long[] insertAt(long[] values, int idx, long value) {
+        long[] result = new long[values.length + 1];
+        System.arraycopy(values, 0, result, 0, idx);
+        result[idx] = value;
+        System.arraycopy(values, idx, result, idx + 1, values.length - idx);
+        return result;
+    }
+
+    static long[] removeAt(long[] values, int idx) {
+        long[] result = new long[values.length - 1];
+        System.arraycopy(values, 0, result, 0, idx);
+        System.arraycopy(values, idx + 1, result, idx, values.length - idx - 1);
+        return result;
+    }
+}
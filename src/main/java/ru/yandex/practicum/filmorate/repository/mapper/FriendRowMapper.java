@@ -1,19 +0,0 @@
-package ru.yandex.practicum.filmorate.repository.mapper;
-
-import org.springframework.jdbc.core.RowMapper;
-import org.springframework.stereotype.Component;
-import ru.yandex.practicum.filmorate.model.Friend;
-
-import java.sql.ResultSet;
-import java.sql.SQLException;
-
-@Component
-public class FriendRowMapper implements RowMapper<Friend> {
-    @Override
-    public Friend mapRow(ResultSet rs, int rowNum) throws SQLException {
-        return new Friend(
-                rs.getLong("friend_id"),
-                rs.getInt("friendship_status_id")
-        );
-    }
-}
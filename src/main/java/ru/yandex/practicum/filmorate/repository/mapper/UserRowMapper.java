@@ -1,20 +1,16 @@
 package ru.yandex.practicum.filmorate.repository.mapper;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
-import ru.yandex.practicum.filmorate.repository.FriendRepository;
 
+import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashSet;
 
 @Component
-@RequiredArgsConstructor
 public class UserRowMapper implements RowMapper<User> {
-    private final FriendRepository friendRepository;
-
     @Override
     public User mapRow(ResultSet resultSet, int rowNum) throws SQLException {
         User user = new User();
@@ -22,8 +18,10 @@ public class UserRowMapper implements RowMapper<User> {
         user.setName(resultSet.getString("username"));
         user.setEmail(resultSet.getString("email"));
         user.setLogin(resultSet.getString("login"));
-        user.setBirthday(resultSet.getDate("birthday").toLocalDate());
-        user.setFriends(new HashSet<>(friendRepository.findFriendsOfUser(user.getId())));
+        Date birthday = resultSet.getDate("birthday");
+        user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+        user.setFriends(new HashSet<>());
+        user.setVersion(resultSet.getLong("version"));
         return user;
     }
 }
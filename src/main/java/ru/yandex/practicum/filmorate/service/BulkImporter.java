@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.BulkImportError;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkImporter {
+    static final int BATCH_SIZE = 1000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    public <T> BulkImportResult importRows(InputStream input, Class<T> type, Consumer<List<T>> save) {
+        return importRows(input, type, value -> {
+        }, save);
+    }
+
+    public <T> BulkImportResult importRows(InputStream input,
+                                           Class<T> type,
+                                           Consumer<T> check,
+                                           Consumer<List<T>> save) {
+        BulkImportResult result = new BulkImportResult();
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        List<Long> batchRows = new ArrayList<>(BATCH_SIZE);
+        long rowsRead = 0;
+        try (JsonParser parser = objectMapper.createParser(input)) {
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node = parser.readValueAsTree();
+                long row = ++rowsRead;
+                try {
+                    T value = objectMapper.treeToValue(node, type);
+                    validate(value);
+                    check.accept(value);
+                    batch.add(value);
+                    batchRows.add(row);
+                } catch (JsonProcessingException | RuntimeException e) {
+                    fail(result, row, message(e));
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    saveBatch(result, batch, batchRows, save);
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            fail(result, rowsRead + 1, "Ошибка разбора JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        saveBatch(result, batch, batchRows, save);
+        result.getErrors().sort(Comparator.comparingLong(BulkImportError::getRow));
+        log.info("Импорт завершён: загружено {}, отклонено {}", result.getImported(), result.getFailed());
+        return result;
+    }
+
+    private <T> void validate(T value) {
+        Set<ConstraintViolation<T>> violations = validator.validate(value);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private <T> void saveBatch(BulkImportResult result,
+                               List<T> batch,
+                               List<Long> batchRows,
+                               Consumer<List<T>> save) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            save.accept(batch);
+            result.setImported(result.getImported() + batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить пакет из {} строк, сохраняем построчно", batch.size(), e);
+            for (int idx = 0; idx < batch.size(); idx++) {
+                saveRow(result, batch.get(idx), batchRows.get(idx), save);
+            }
+        }
+        batch.clear();
+        batchRows.clear();
+    }
+
+    private <T> void saveRow(BulkImportResult result, T value, long row, Consumer<List<T>> save) {
+        try {
+            save.accept(List.of(value));
+            result.setImported(result.getImported() + 1);
+        } catch (RuntimeException e) {
+            log.debug("Не удалось сохранить строку {}", row, e);
+            fail(result, row, message(e));
+        }
+    }
+
+    private static String message(Exception e) {
+        if (e instanceof DataAccessException dataAccessException
+                && dataAccessException.getMostSpecificCause().getMessage() != null) {
+            return dataAccessException.getMostSpecificCause().getMessage();
+        }
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static void fail(BulkImportResult result, long row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new BulkImportError(row, message));
+        }
+    }
+}
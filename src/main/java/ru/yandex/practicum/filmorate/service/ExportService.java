@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
+import ru.yandex.practicum.filmorate.model.ExportFormat;
+import ru.yandex.practicum.filmorate.model.ExportTable;
+import ru.yandex.practicum.filmorate.repository.ExportRepository;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+@Service
+public class ExportService {
+    private final ExportRepository repository;
+    private final ObjectMapper objectMapper;
+
+    public List<Long> parseAfter(ExportTable table, String after) {
+        List<Long> key = new ArrayList<>(table.getKeyColumns());
+        if (after != null && !after.isBlank()) {
+            String[] parts = after.split(",");
+            if (parts.length > table.getKeyColumns()) {
+                throw new ParameterNotValidException("after", "ожидается не более " + table.getKeyColumns()
+                        + " значений ключа");
+            }
+            try {
+                for (String part : parts) {
+                    key.add(Long.parseLong(part.trim()));
+                }
+            } catch (NumberFormatException e) {
+                throw new ParameterNotValidException("after", "ключ должен состоять из чисел");
+            }
+        }
+        return key;
+    }
+
+    public void export(ExportTable table, ExportFormat format, List<Long> after, OutputStream output)
+            throws IOException {
+        switch (format) {
+            case NDJSON -> exportNdjson(table, after, output);
+            case CSV -> exportCsv(table, after, output);
+        }
+    }
+
+    private void exportNdjson(ExportTable table, List<Long> after, OutputStream output) throws IOException {
+        try (JsonGenerator generator = objectMapper.createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+            List<String> names = new ArrayList<>();
+            repository.export(table, after, names::addAll, values -> {
+                try {
+                    generator.writeStartObject();
+                    for (int idx = 0; idx < values.length; idx++) {
+                        generator.writeFieldName(names.get(idx));
+                        generator.writeObject(values[idx]);
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void exportCsv(ExportTable table, List<Long> after, OutputStream output) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            repository.export(table, after,
+                    names -> writeCsvLine(writer, names.toArray()),
+                    values -> writeCsvLine(writer, values));
+        }
+    }
+
+    private static void writeCsvLine(Writer writer, Object[] values) {
+        try {
+            for (int idx = 0; idx < values.length; idx++) {
+                if (idx > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvValue(values[idx]));
+            }
+            writer.write("\r\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
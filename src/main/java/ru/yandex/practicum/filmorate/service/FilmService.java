@@ -2,24 +2,51 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmLikesCount;
+import ru.yandex.practicum.filmorate.model.FilmSearchField;
 import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.GenreRepository;
+import ru.yandex.practicum.filmorate.repository.MpaRepository;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @RequiredArgsConstructor
 @Service
 public class FilmService {
     private final FilmRepository repository;
+    private final GenreRepository genreRepository;
+    private final MpaRepository mpaRepository;
+    private final BulkImporter bulkImporter;
 
     public List<Film> findAll() {
         return repository.findAll();
     }
 
+    public List<Film> findPage(long after, int limit) {
+        return repository.findPage(after, limit);
+    }
+
+    public void streamAll(Consumer<Film> consumer) {
+        repository.streamAll(consumer);
+    }
+
     public Film create(Film film) {
         return repository.create(film);
     }
 
+    public BulkImportResult importFilms(InputStream input) {
+        return bulkImporter.importRows(input, Film.class, film -> {
+            genreRepository.checkGenresExists(film.getGenres());
+            mpaRepository.checkMpaExists(film.getMpa().getId());
+        }, repository::createAll);
+    }
+
     public Film update(Film newFilm) {
         return repository.update(newFilm);
     }
@@ -28,15 +55,35 @@ public class FilmService {
         return repository.addLike(id, userId);
     }
 
+    public FilmLikesCount addLikeGetCount(long id, long userId) {
+        return new FilmLikesCount(id, repository.addLikeGetCount(id, userId));
+    }
+
     public Film deleteLike(long id, long userId) {
         return repository.deleteLike(id, userId);
     }
 
-    public List<Film> getPopular(long count) {
-        return repository.getPopular(count);
+    public FilmLikesCount deleteLikeGetCount(long id, long userId) {
+        return new FilmLikesCount(id, repository.deleteLikeGetCount(id, userId));
+    }
+
+    public List<Film> getPopular(long count, Integer genreId, Integer year) {
+        return repository.getPopular(count, genreId, year);
+    }
+
+    public List<Film> search(String query, Set<FilmSearchField> by, int limit) {
+        return repository.search(query, by, limit);
     }
 
     public Film findById(long id) {
         return repository.findById(id);
     }
+
+    public EntityVersion findVersion(long id) {
+        return repository.findVersion(id);
+    }
+
+    public List<EntityVersion> findPopularVersions(long count, Integer genreId, Integer year) {
+        return repository.findPopularVersions(count, genreId, year);
+    }
 }
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "filmorate.likes-count.reconcile-on-startup", havingValue = "true")
+public class LikesCountReconciler implements ApplicationRunner {
+    private final FilmRepository repository;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Пересчет счетчиков лайков фильмов");
+        repository.reconcileLikesCounts();
+    }
+}
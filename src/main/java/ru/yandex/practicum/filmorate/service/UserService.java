@@ -2,25 +2,46 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
 import ru.yandex.practicum.filmorate.repository.UserRepository;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RequiredArgsConstructor
 @Service
 public class UserService {
 
     private final UserRepository repository;
+    private final FilmRepository filmRepository;
+    private final BulkImporter bulkImporter;
 
-    public List<User> findAll() {
-        return repository.findAll();
+    public List<User> findAll(boolean withFriends) {
+        return repository.findAll(withFriends);
+    }
+
+    public List<User> findPage(long after, int limit, boolean withFriends) {
+        return repository.findPage(after, limit, withFriends);
+    }
+
+    public void streamAll(boolean withFriends, Consumer<User> consumer) {
+        repository.streamAll(withFriends, consumer);
     }
 
     public User create(User user) {
         return repository.create(user);
     }
 
+    public BulkImportResult importUsers(InputStream input) {
+        return bulkImporter.importRows(input, User.class, repository::createAll);
+    }
+
     public User update(User newUser) {
         return repository.update(newUser);
     }
@@ -37,7 +58,19 @@ public class UserService {
         return repository.findAllFriends(id);
     }
 
+    public List<EntityVersion> findFriendsVersions(long id) {
+        return repository.findFriendsVersions(id);
+    }
+
     public List<User> findCommonFriends(long id, Long otherId) {
         return repository.findCommonFriends(id, otherId);
     }
+
+    public List<FriendSuggestion> findFriendSuggestions(long id, int limit) {
+        return repository.findFriendSuggestions(id, limit);
+    }
+
+    public List<Film> findRecommendations(long id, int limit) {
+        return filmRepository.findRecommendations(id, limit);
+    }
 }
@@ -4,9 +4,13 @@ CREATE TABLE IF NOT EXISTS "users"
     "email"    varchar(33) NOT NULL,
     "login"    varchar(20) NOT NULL,
     "username" varchar(20),
-    "birthday" date
+    "birthday" date,
+    "version"  bigint NOT NULL DEFAULT 0
 );
 
+ALTER TABLE "users"
+    ADD COLUMN IF NOT EXISTS "version" bigint NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS "friends"
 (
     "user_id"              bigint NOT NULL,
@@ -28,9 +32,17 @@ CREATE TABLE IF NOT EXISTS "films"
     "description" varchar(200) NOT NULL,
     "release_date" date         NOT NULL,
     "duration"     int          NOT NULL,
-    "mpa_id"       int          NOT NULL
+    "mpa_id"       int          NOT NULL,
+    "likes_count"  bigint       NOT NULL DEFAULT 0,
+    "version"      bigint       NOT NULL DEFAULT 0
 );
 
+ALTER TABLE "films"
+    ADD COLUMN IF NOT EXISTS "likes_count" bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE "films"
+    ADD COLUMN IF NOT EXISTS "version" bigint NOT NULL DEFAULT 0;
+
 CREATE TABLE IF NOT EXISTS "mpas"
 (
     "mpa_id" INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
@@ -79,4 +91,12 @@ ALTER TABLE "films_genre"
     ADD FOREIGN KEY ("film_id") REFERENCES "films" ("film_id");
 
 ALTER TABLE "films_genre"
-    ADD FOREIGN KEY ("genre_id") REFERENCES "genres" ("genre_id");
\ No newline at end of file
+    ADD FOREIGN KEY ("genre_id") REFERENCES "genres" ("genre_id");
+
+CREATE INDEX IF NOT EXISTS "films_genre_genre_id_idx" ON "films_genre" ("genre_id");
+
+CREATE INDEX IF NOT EXISTS "films_release_date_idx" ON "films" ("release_date");
+
+CREATE INDEX IF NOT EXISTS "likes_user_id_idx" ON "likes" ("user_id");
+
+CREATE INDEX IF NOT EXISTS "films_likes_count_idx" ON "films" ("likes_count" DESC, "film_id");
@@ -0,0 +1,260 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@Tag("load")
+class FilmorateLoadTest {
+    private static final long SEED = Long.getLong("filmorate.load.seed", 42);
+    private static final int USERS = Integer.getInteger("filmorate.load.users", 10_000);
+    private static final int FILMS = Integer.getInteger("filmorate.load.films", 5_000);
+    private static final int LIKES_PER_USER = Integer.getInteger("filmorate.load.likes-per-user", 20);
+    private static final double LIKES_SKEW = Double.parseDouble(System.getProperty("filmorate.load.likes-skew", "1.0"));
+    private static final int FRIENDS_PER_USER = Integer.getInteger("filmorate.load.friends-per-user", 10);
+    private static final int CONCURRENCY = Integer.getInteger("filmorate.load.concurrency", 64);
+    private static final int WARMUP_REQUESTS = Integer.getInteger("filmorate.load.warmup-requests", 5_000);
+    private static final int REQUESTS = Integer.getInteger("filmorate.load.requests", 20_000);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Queue<Long> createdUsers = new ConcurrentLinkedQueue<>();
+    private final AtomicLong created = new AtomicLong();
+    private SyntheticData data;
+    private String baseUrl;
+
+    @Test
+    void replayMixedWorkload() throws Exception {
+        data = new SyntheticData(SEED, USERS, FILMS, LIKES_PER_USER, LIKES_SKEW, FRIENDS_PER_USER);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.zalando.logbook=INFO",
+                        "--logging.level.ru.yandex.practicum.filmorate=WARN",
+                        "--logging.level.ru.yandex.practicum.filmorate.FilmorateLoadTest=INFO")) {
+            data.writeTo(context);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            run(WARMUP_REQUESTS, new Recorder());
+            Recorder recorder = new Recorder();
+            double seconds = run(REQUESTS, recorder);
+            recorder.report(seconds);
+            assertEquals(0, recorder.errors(), "Запросы с ошибками: " + recorder.errorsByEndpoint());
+        }
+    }
+
+    private double run(int requests, Recorder recorder) throws Exception {
+        List<Operation> operations = operations();
+        int totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+        AtomicInteger remaining = new AtomicInteger(requests);
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>(CONCURRENCY);
+            for (int worker = 0; worker < CONCURRENCY; worker++) {
+                Random random = new Random(SEED + worker);
+                futures.add(workers.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        Operation operation = pick(operations, random.nextInt(totalWeight));
+                        long started = System.nanoTime();
+                        int status = operation.request().send(random);
+                        recorder.record(operation.name(), System.nanoTime() - started, status);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    private List<Operation> operations() {
+        return List.of(
+                new Operation("GET /films/{id}", 25,
+                        random -> get("/films/" + data.randomFilm(random))),
+                new Operation("GET /films/popular", 12,
+                        random -> get("/films/popular?count=10")),
+                new Operation("GET /films/popular?genreId&year", 5,
+                        random -> get("/films/popular?count=10&genreId=" + (1 + random.nextInt(SyntheticData.GENRES))
+                                + "&year=" + (1950 + random.nextInt(75)))),
+                new Operation("GET /films/search", 5,
+                        random -> get("/films/search?query=" + URI.create(SyntheticData.TITLE_WORDS[
+                                random.nextInt(SyntheticData.TITLE_WORDS.length)]).toASCIIString()
+                                + "&by=title,description")),
+                new Operation("GET /users/{id}/friends", 10,
+                        random -> get("/users/" + data.randomUser(random) + "/friends")),
+                new Operation("GET /users/{id}/friends/common/{otherId}", 5,
+                        random -> get("/users/" + data.randomUser(random) + "/friends/common/"
+                                + data.randomUser(random))),
+                new Operation("GET /users/{id}/friends/suggestions", 3,
+                        random -> get("/users/" + data.randomUser(random) + "/friends/suggestions")),
+                new Operation("GET /users/{id}/recommendations", 5,
+                        random -> get("/users/" + data.randomUser(random) + "/recommendations")),
+                new Operation("GET /genres", 2, random -> get("/genres")),
+                new Operation("GET /mpa", 2, random -> get("/mpa")),
+                new Operation("PUT /films/{id}/like/{userId}", 12,
+                        random -> send("PUT", "/films/" + data.randomFilm(random) + "/like/"
+                                + data.randomUser(random), null)),
+                new Operation("DELETE /films/{id}/like/{userId}", 5,
+                        random -> send("DELETE", "/films/" + data.randomFilm(random) + "/like/"
+                                + data.randomUser(random), null)),
+                new Operation("POST /films", 2, this::createFilm),
+                new Operation("PUT /films", 2, this::updateFilm),
+                new Operation("POST /users", 3, this::createUser),
+                new Operation("PUT /users/{id}/friends/{friendId}", 2, this::addFriend)
+        );
+    }
+
+    private int createFilm(Random random) throws Exception {
+        return send("POST", "/films", film(null, random));
+    }
+
+    private int updateFilm(Random random) throws Exception {
+        return send("PUT", "/films", film(data.randomFilm(random), random));
+    }
+
+    private String film(Long id, Random random) throws Exception {
+        Map<String, Object> film = new TreeMap<>();
+        if (id != null) {
+            film.put("id", id);
+        }
+        film.put("name", SyntheticData.randomTitle(random));
+        film.put("description", "Описание: " + SyntheticData.randomTitle(random));
+        film.put("releaseDate", (1950 + random.nextInt(75)) + "-01-01");
+        film.put("duration", 60 + random.nextInt(120));
+        film.put("mpa", Map.of("id", 1 + random.nextInt(SyntheticData.MPAS)));
+        film.put("genres", List.of(Map.of("id", 1 + random.nextInt(SyntheticData.GENRES))));
+        return objectMapper.writeValueAsString(film);
+    }
+
+    private int createUser(Random random) throws Exception {
+        long number = created.incrementAndGet();
+        String body = objectMapper.writeValueAsString(Map.of(
+                "email", "load" + number + "@ya.ru",
+                "login", "load" + number,
+                "name", "Load " + number,
+                "birthday", (1960 + random.nextInt(50)) + "-01-01"));
+        HttpResponse<String> response = client.send(request("POST", "/users", body),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() == 200 || response.statusCode() == 201) {
+            createdUsers.add(objectMapper.readTree(response.body()).get("id").asLong());
+        }
+        return response.statusCode();
+    }
+
+    private int addFriend(Random random) throws Exception {
+        Long userId = createdUsers.poll();
+        if (userId == null) {
+            return get("/users/" + data.randomUser(random) + "/friends");
+        }
+        return send("PUT", "/users/" + userId + "/friends/" + data.randomUser(random), null);
+    }
+
+    private int get(String path) throws Exception {
+        return send("GET", path, null);
+    }
+
+    private int send(String method, String path, String body) throws Exception {
+        return client.send(request(method, path, body), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest request(String method, String path, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30));
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static Operation pick(List<Operation> operations, int point) {
+        for (Operation operation : operations) {
+            point -= operation.weight();
+            if (point < 0) {
+                return operation;
+            }
+        }
+        return operations.getLast();
+    }
+
+    private record Operation(String name, int weight, Request request) {
+    }
+
+    private interface Request {
+        int send(Random random) throws Exception;
+    }
+
+    private static final class Recorder {
+        private final Map<String, Queue<Long>> latencies = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+
+        void record(String endpoint, long nanos, int status) {
+            latencies.computeIfAbsent(endpoint, key -> new ConcurrentLinkedQueue<>()).add(nanos);
+            if (status >= 400) {
+                errors.computeIfAbsent(endpoint, key -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+
+        int errors() {
+            return errors.values().stream().mapToInt(AtomicInteger::get).sum();
+        }
+
+        Map<String, Integer> errorsByEndpoint() {
+            Map<String, Integer> result = new TreeMap<>();
+            errors.forEach((endpoint, count) -> result.put(endpoint, count.get()));
+            return result;
+        }
+
+        void report(double seconds) {
+            log.info(String.format("%-45s %8s %7s %9s %9s %9s %9s",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms"));
+            new TreeMap<>(latencies).forEach((endpoint, samples) -> {
+                long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+                AtomicInteger failed = errors.get(endpoint);
+                log.info(String.format(Locale.ROOT, "%-45s %8d %7d %9.0f %9.2f %9.2f %9.2f",
+                        endpoint, sorted.length, failed == null ? 0 : failed.get(), sorted.length / seconds,
+                        percentile(sorted, 0.5), percentile(sorted, 0.99), percentile(sorted, 0.999)));
+            });
+            log.info(String.format(Locale.ROOT, "total: %d requests in %.2f s, %.0f req/s",
+                    REQUESTS, seconds, REQUESTS / seconds));
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            int idx = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, idx)] / 1e6;
+        }
+    }
+}
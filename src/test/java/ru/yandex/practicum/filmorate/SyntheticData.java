@@ -0,0 +1,218 @@
+package ru.yandex.practicum.filmorate;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.index.FriendshipGraph;
+import ru.yandex.practicum.filmorate.repository.index.LikesIndex;
+import ru.yandex.practicum.filmorate.repository.index.PopularFilmsIndex;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class SyntheticData {
+    public static final int GENRES = 6;
+    public static final int MPAS = 5;
+    public static final String[] TITLE_WORDS = {
+            "звёздный", "ночной", "последний", "тихий", "красный", "северный", "забытый", "быстрый",
+            "город", "путь", "берег", "остров", "поезд", "сад", "дом", "ветер", "океан", "лес",
+            "дорога", "тайна", "история", "охота", "война", "любовь", "зима", "лето", "море", "небо"
+    };
+
+    private static final String FILMS_COUNT_QUERY = """
+            SELECT COUNT(*) FROM "films";
+            """;
+    private static final String FILMS_INSERT_QUERY = """
+            INSERT INTO "films" ("name", "description", "release_date", "duration", "mpa_id")
+            VALUES (?, ?, ?, ?, ?);
+            """;
+    private static final String FILMS_GENRE_INSERT_QUERY = """
+            INSERT INTO "films_genre" ("film_id", "genre_id")
+            VALUES (?, ?);
+            """;
+    private static final String USERS_INSERT_QUERY = """
+            INSERT INTO "users" ("email", "login", "username", "birthday")
+            VALUES (?, ?, ?, ?);
+            """;
+    private static final String LIKES_INSERT_QUERY = """
+            INSERT INTO "likes" ("film_id", "user_id")
+            VALUES (?, ?);
+            """;
+    private static final String FRIENDS_INSERT_QUERY = """
+            INSERT INTO "friends" ("user_id", "friend_id", "friendship_status_id")
+            VALUES (?, ?, 2);
+            """;
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_ATTEMPTS_PER_PICK = 8;
+    private static final double MUTUAL_FRIENDS_SHARE = 0.3;
+
+    private final long seed;
+    private final int users;
+    private final int films;
+    private final int likesPerUser;
+    private final int friendsPerUser;
+    private final double[] popularity;
+    private final long[] filmsByRank;
+
+    public SyntheticData(long seed, int users, int films, int likesPerUser, double likesSkew, int friendsPerUser) {
+        this.seed = seed;
+        this.users = users;
+        this.films = films;
+        this.likesPerUser = likesPerUser;
+        this.friendsPerUser = friendsPerUser;
+        popularity = new double[films];
+        double total = 0;
+        for (int rank = 0; rank < films; rank++) {
+            total += 1 / Math.pow(rank + 1, likesSkew);
+            popularity[rank] = total;
+        }
+        filmsByRank = new long[films];
+        for (int rank = 0; rank < films; rank++) {
+            filmsByRank[rank] = rank + 1;
+        }
+        Random random = new Random(seed);
+        for (int idx = films - 1; idx > 0; idx--) {
+            int other = random.nextInt(idx + 1);
+            long film = filmsByRank[idx];
+            filmsByRank[idx] = filmsByRank[other];
+            filmsByRank[other] = film;
+        }
+    }
+
+    public int users() {
+        return users;
+    }
+
+    public int films() {
+        return films;
+    }
+
+    public long randomFilm(Random random) {
+        int rank = Arrays.binarySearch(popularity, random.nextDouble() * popularity[films - 1]);
+        return filmsByRank[rank >= 0 ? rank : Math.min(-rank - 1, films - 1)];
+    }
+
+    public long randomUser(Random random) {
+        return 1 + random.nextInt(users);
+    }
+
+    public static String randomTitle(Random random) {
+        return TITLE_WORDS[random.nextInt(TITLE_WORDS.length)] + " "
+                + TITLE_WORDS[random.nextInt(TITLE_WORDS.length)];
+    }
+
+    public void writeTo(ApplicationContext context) {
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        Long existing = jdbc.queryForObject(FILMS_COUNT_QUERY, Long.class);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("Синтетические данные загружаются только в пустую базу");
+        }
+        Random random = new Random(seed);
+        Batch batch = new Batch(jdbc);
+        writeFilms(batch, random);
+        writeUsers(batch, random);
+        writeLikes(batch, random);
+        writeFriends(batch, random);
+        context.getBean(FilmRepository.class).reconcileLikesCounts();
+        context.getBean(PopularFilmsIndex.class).load();
+        context.getBean(FilmSearchIndex.class).load();
+        context.getBean(LikesIndex.class).load();
+        context.getBean(FriendshipGraph.class).load();
+    }
+
+    private void writeFilms(Batch batch, Random random) {
+        for (int id = 1; id <= films; id++) {
+            batch.add(FILMS_INSERT_QUERY, randomTitle(random) + " " + id, "Описание: " + randomTitle(random),
+                    Date.valueOf(LocalDate.of(1950 + random.nextInt(75), 1 + random.nextInt(12), 1)),
+                    60 + random.nextInt(120), 1 + random.nextInt(MPAS));
+        }
+        batch.flush(FILMS_INSERT_QUERY);
+        for (int id = 1; id <= films; id++) {
+            int genres = 1 + random.nextInt(3);
+            int first = random.nextInt(GENRES);
+            for (int idx = 0; idx < genres; idx++) {
+                batch.add(FILMS_GENRE_INSERT_QUERY, id, 1 + (first + idx) % GENRES);
+            }
+        }
+        batch.flush(FILMS_GENRE_INSERT_QUERY);
+    }
+
+    private void writeUsers(Batch batch, Random random) {
+        for (int id = 1; id <= users; id++) {
+            batch.add(USERS_INSERT_QUERY, "user" + id + "@ya.ru", "login" + id, "User " + id,
+                    Date.valueOf(LocalDate.of(1960 + random.nextInt(50), 1 + random.nextInt(12), 1)));
+        }
+        batch.flush(USERS_INSERT_QUERY);
+    }
+
+    private void writeLikes(Batch batch, Random random) {
+        Set<Long> liked = new HashSet<>();
+        for (int userId = 1; userId <= users; userId++) {
+            int count = Math.min(films, 1 + random.nextInt(Math.max(1, 2 * likesPerUser - 1)));
+            liked.clear();
+            for (int attempt = 0; liked.size() < count && attempt < count * MAX_ATTEMPTS_PER_PICK; attempt++) {
+                liked.add(randomFilm(random));
+            }
+            for (long filmId : liked) {
+                batch.add(LIKES_INSERT_QUERY, filmId, userId);
+            }
+        }
+        batch.flush(LIKES_INSERT_QUERY);
+    }
+
+    private void writeFriends(Batch batch, Random random) {
+        int[] endpoints = new int[users * (1 + 2 * friendsPerUser)];
+        int size = 0;
+        Set<Integer> targets = new HashSet<>();
+        for (int userId = 1; userId <= users; userId++) {
+            int count = Math.min(friendsPerUser, userId - 1);
+            targets.clear();
+            for (int attempt = 0; targets.size() < count && attempt < count * MAX_ATTEMPTS_PER_PICK; attempt++) {
+                int target = endpoints[random.nextInt(size)];
+                if (target != userId) {
+                    targets.add(target);
+                }
+            }
+            for (int target : targets) {
+                batch.add(FRIENDS_INSERT_QUERY, userId, target);
+                if (random.nextDouble() < MUTUAL_FRIENDS_SHARE) {
+                    batch.add(FRIENDS_INSERT_QUERY, target, userId);
+                }
+                endpoints[size++] = userId;
+                endpoints[size++] = target;
+            }
+            endpoints[size++] = userId;
+        }
+        batch.flush(FRIENDS_INSERT_QUERY);
+    }
+
+    private static final class Batch {
+        private final JdbcTemplate jdbc;
+        private final List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+
+        Batch(JdbcTemplate jdbc) {
+            this.jdbc = jdbc;
+        }
+
+        void add(String query, Object... row) {
+            rows.add(row);
+            if (rows.size() == BATCH_SIZE) {
+                flush(query);
+            }
+        }
+
+        void flush(String query) {
+            if (!rows.isEmpty()) {
+                jdbc.batchUpdate(query, rows);
+                rows.clear();
+            }
+        }
+    }
+}
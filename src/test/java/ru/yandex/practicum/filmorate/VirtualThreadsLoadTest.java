@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.FilmRepository;
+import ru.yandex.practicum.filmorate.repository.UserRepository;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Slf4j
+@Tag("load")
+class VirtualThreadsLoadTest {
+    private static final int FILMS = 1_000;
+    private static final int USERS = 1_000;
+    private static final int LIKES_PER_USER = 20;
+    private static final int CONCURRENCY = 400;
+    private static final int WARMUP_REQUESTS = 2_000;
+    private static final int REQUESTS = 10_000;
+
+    @Test
+    void compareThroughput() throws Exception {
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = start(virtual)) {
+                seed(context);
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                Random random = new Random(42);
+                UriSource film = () -> "http://localhost:" + port + "/films/" + (random.nextInt(FILMS) + 1);
+                UriSource popular = () -> "http://localhost:" + port + "/films/popular?count=10";
+                run(film, WARMUP_REQUESTS);
+                run(popular, WARMUP_REQUESTS);
+                report(virtual, "/films/{id}", run(film, REQUESTS));
+                report(virtual, "/films/popular", run(popular, REQUESTS));
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        return new SpringApplicationBuilder(FilmorateApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + virtual + ";DB_CLOSE_DELAY=-1",
+                        "--logging.level.org.zalando.logbook=INFO",
+                        "--logging.level.ru.yandex.practicum.filmorate=WARN",
+                        "--logging.level.ru.yandex.practicum.filmorate.VirtualThreadsLoadTest=INFO");
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        FilmRepository filmRepository = context.getBean(FilmRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<Film> films = new ArrayList<>(FILMS);
+        for (int i = 1; i <= FILMS; i++) {
+            films.add(Film.builder()
+                    .name("Фильм " + i)
+                    .description("Описание фильма " + i)
+                    .releaseDate(LocalDate.of(2000 + i % 20, 1, 1))
+                    .duration(90)
+                    .mpa(new Mpa(1 + i % 5, null))
+                    .genres(Set.of(new Genre(1 + i % 6, null)))
+                    .build());
+        }
+        filmRepository.createAll(films);
+        List<User> users = new ArrayList<>(USERS);
+        for (int i = 1; i <= USERS; i++) {
+            users.add(User.builder()
+                    .name("User " + i)
+                    .email("user" + i + "@ya.ru")
+                    .login("login" + i)
+                    .birthday(LocalDate.of(2000, 1, 1))
+                    .build());
+        }
+        userRepository.createAll(users);
+        Random random = new Random(42);
+        for (User user : users) {
+            for (int i = 0; i < LIKES_PER_USER; i++) {
+                filmRepository.addLike(films.get(random.nextInt(FILMS)).getId(), user.getId());
+            }
+        }
+    }
+
+    private static double run(UriSource uris, int requests) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        AtomicInteger serverErrors = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<String> requestUris = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            requestUris.add(uris.next());
+        }
+        long start = System.nanoTime();
+        try (ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY, Thread.ofVirtual().factory())) {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (String uri : requestUris) {
+                futures.add(workers.submit(() -> {
+                    HttpResponse<Void> response = client.send(
+                            HttpRequest.newBuilder(URI.create(uri)).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() >= 500) {
+                        serverErrors.incrementAndGet();
+                    } else if (response.statusCode() != 200) {
+                        failures.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(0, serverErrors.get(), "Ответы 5xx под нагрузкой");
+        assertEquals(0, failures.get(), "Ответы, отличные от 200, под нагрузкой");
+        return seconds;
+    }
+
+    private static void report(boolean virtual, String endpoint, double seconds) {
+        log.info(String.format(Locale.ROOT, "%s, virtual threads: %s, %d requests in %.2f s, %.0f req/s",
+                endpoint, virtual, REQUESTS, seconds, REQUESTS / seconds));
+    }
+
+    private interface UriSource {
+        String next();
+    }
+}
@@ -0,0 +1,57 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "filmorate.query-stats.headers.enabled=true")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class QueryStatisticsHeadersTest {
+    private final MockMvc mockMvc;
+    private final ObjectMapper objectMapper;
+
+    @Test
+    void queryCountHeaderReported() throws Exception {
+        MvcResult created = mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "Фильм", "description": "Описание", "releaseDate": "2000-01-01",
+                                 "duration": 90, "mpa": {"id": 1}}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(QueryStatisticsHeaders.QUERY_COUNT_HEADER))
+                .andReturn();
+        long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+
+        MvcResult film = mockMvc.perform(get("/films/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(QueryStatisticsHeaders.QUERY_TIME_HEADER))
+                .andReturn();
+        String count = film.getResponse().getHeader(QueryStatisticsHeaders.QUERY_COUNT_HEADER);
+        assertNotNull(count);
+        assertTrue(Integer.parseInt(count) > 0);
+
+        mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryStatisticsHeaders.QUERY_COUNT_HEADER, "0"));
+        assertEquals(count, mockMvc.perform(get("/films/{id}", id))
+                .andReturn().getResponse().getHeader(QueryStatisticsHeaders.QUERY_COUNT_HEADER));
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmGenre;
+import ru.yandex.practicum.filmorate.model.FilmLike;
+import ru.yandex.practicum.filmorate.model.Genre;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class FilmStitchingBenchmark {
+    private static final int GENRES_PER_FILM = 2;
+    private static final int LIKES_PER_FILM = 5;
+
+    public abstract static class Dataset {
+        List<Film> filmList;
+        List<FilmGenre> filmGenres;
+        List<FilmLike> filmLikes;
+
+        void fill(int films) {
+            Random random = new Random(42);
+            filmList = new ArrayList<>(films);
+            filmGenres = new ArrayList<>(films * GENRES_PER_FILM);
+            filmLikes = new ArrayList<>(films * LIKES_PER_FILM);
+            for (long id = 1; id <= films; id++) {
+                filmList.add(Film.builder().id(id).build());
+                for (int i = 0; i < GENRES_PER_FILM; i++) {
+                    int genreId = random.nextInt(6) + 1;
+                    filmGenres.add(new FilmGenre(id, genreId, "Жанр " + genreId));
+                }
+                for (int i = 0; i < LIKES_PER_FILM; i++) {
+                    filmLikes.add(new FilmLike(id, random.nextInt(films) + 1));
+                }
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Films extends Dataset {
+        @Param({"10000", "100000", "1000000"})
+        int films;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            fill(films);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LegacyFilms extends Dataset {
+        @Param({"1000", "10000"})
+        int films;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            fill(films);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(FilmStitchingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Benchmark
+    public void stitchIndexed(Films state, Blackhole blackhole) {
+        JdbcFilmRepository.stitchGenres(state.filmList, state.filmGenres);
+        JdbcFilmRepository.stitchLikes(state.filmList, state.filmLikes);
+        blackhole.consume(state.filmList);
+    }
+
+    @Benchmark
+    public void stitchFilterPerFilm(LegacyFilms state, Blackhole blackhole) {
+        for (Film film : state.filmList) {
+            film.setGenres(state.filmGenres.stream()
+                    .filter(filmGenre -> film.getId() == filmGenre.getFilmId())
+                    .map(filmGenre -> new Genre(
+                            filmGenre.getGenreId(),
+                            filmGenre.getGenre())
+                    )
+                    .collect(Collectors.toSet()));
+        }
+        for (Film film : state.filmList) {
+            film.setLikes(state.filmLikes.stream()
+                    .filter(filmLike -> film.getId() == filmLike.getFilmId())
+                    .map(FilmLike::getUserId)
+                    .collect(Collectors.toSet()));
+        }
+        blackhole.consume(state.filmList);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.model.ExportTable;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@ContextConfiguration(classes = {JdbcExportRepository.class, SimpleMeterRegistry.class})
+class JdbcExportRepositoryTest {
+    @Autowired
+    private final JdbcExportRepository jdbcExportRepository;
+    @Autowired
+    private final JdbcTemplate jdbc;
+    @Autowired
+    private final MeterRegistry meterRegistry;
+
+    private long insertFilm(String name, LocalDate releaseDate) {
+        jdbc.update("""
+                INSERT INTO "films" ("name", "description", "release_date", "duration", "mpa_id")
+                VALUES (?, ?, ?, 90, 1);
+                """, name, "Описание " + name, java.sql.Date.valueOf(releaseDate));
+        return jdbc.queryForObject("SELECT MAX(\"film_id\") FROM \"films\"", Long.class);
+    }
+
+    private long insertUser(String login) {
+        jdbc.update("""
+                INSERT INTO "users" ("email", "login", "username", "birthday")
+                VALUES (?, ?, ?, ?);
+                """, login + "@ya.ru", login, login, java.sql.Date.valueOf(LocalDate.of(2000, 2, 20)));
+        return jdbc.queryForObject("SELECT MAX(\"user_id\") FROM \"users\"", Long.class);
+    }
+
+    @Test
+    void exportAfterKey() {
+        long film1Id = insertFilm("Фильм №1", LocalDate.of(2020, 1, 1));
+        long film2Id = insertFilm("Фильм №2", LocalDate.of(2021, 1, 1));
+        long user1Id = insertUser("userLogin1");
+        long user2Id = insertUser("userLogin2");
+        jdbc.update("INSERT INTO \"likes\" VALUES (?, ?), (?, ?), (?, ?)",
+                film1Id, user1Id, film1Id, user2Id, film2Id, user1Id);
+
+        List<String> columns = new ArrayList<>();
+        List<Object[]> films = new ArrayList<>();
+        jdbcExportRepository.export(ExportTable.FILMS, List.of(film1Id), columns::addAll, row -> films.add(row.clone()));
+        assertEquals(List.of("film_id", "name", "description", "release_date", "duration", "mpa_id"), columns);
+        assertEquals(1, films.size());
+        assertEquals(film2Id, films.getFirst()[0]);
+        assertEquals(LocalDate.of(2021, 1, 1), films.getFirst()[3]);
+
+        List<Object[]> likes = new ArrayList<>();
+        jdbcExportRepository.export(ExportTable.LIKES, List.of(film1Id, user1Id), names -> {
+        }, row -> likes.add(row.clone()));
+        assertEquals(2, likes.size());
+        assertArrayEquals(new Object[]{film1Id, user2Id}, likes.get(0));
+        assertArrayEquals(new Object[]{film2Id, user1Id}, likes.get(1));
+    }
+
+    @Test
+    void exportCompositeKeyAfterFirstColumn() {
+        long film1Id = insertFilm("Фильм №1", LocalDate.of(2020, 1, 1));
+        long film2Id = insertFilm("Фильм №2", LocalDate.of(2021, 1, 1));
+        long user1Id = insertUser("userLogin1");
+        long user2Id = insertUser("userLogin2");
+        jdbc.update("INSERT INTO \"likes\" VALUES (?, ?), (?, ?), (?, ?)",
+                film1Id, user1Id, film1Id, user2Id, film2Id, user1Id);
+
+        List<Object[]> likes = new ArrayList<>();
+        jdbcExportRepository.export(ExportTable.LIKES, List.of(film1Id), names -> {
+        }, likes::add);
+        assertEquals(1, likes.size());
+        assertArrayEquals(new Object[]{film2Id, user1Id}, likes.getFirst());
+
+        likes.clear();
+        jdbcExportRepository.export(ExportTable.LIKES, List.of(), names -> {
+        }, likes::add);
+        assertEquals(3, likes.size());
+        assertArrayEquals(new Object[]{film1Id, user1Id}, likes.getFirst());
+    }
+
+    @Test
+    void exportFriends() {
+        long user1Id = insertUser("userLogin1");
+        long user2Id = insertUser("userLogin2");
+        long user3Id = insertUser("userLogin3");
+        jdbc.update("INSERT INTO \"friends\" VALUES (?, ?, 1), (?, ?, 2), (?, ?, 1)",
+                user1Id, user2Id, user1Id, user3Id, user2Id, user1Id);
+
+        List<String> columns = new ArrayList<>();
+        List<Object[]> friends = new ArrayList<>();
+        jdbcExportRepository.export(ExportTable.FRIENDS, List.of(user1Id, user2Id), columns::addAll,
+                row -> friends.add(row.clone()));
+        assertEquals(List.of("user_id", "friend_id", "friendship_status_id"), columns);
+        assertEquals(2, friends.size());
+        assertArrayEquals(new Object[]{user1Id, user3Id, 2}, friends.get(0));
+        assertArrayEquals(new Object[]{user2Id, user1Id, 1}, friends.get(1));
+    }
+
+    @Test
+    void exportTimesQueryWithoutConsumer() {
+        insertFilm("Фильм №1", LocalDate.of(2020, 1, 1));
+        insertFilm("Фильм №2", LocalDate.of(2021, 1, 1));
+
+        jdbcExportRepository.export(ExportTable.FILMS, List.of(0L), names -> {
+        }, row -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Timer timer = meterRegistry.get("filmorate.repository.query")
+                .tags("repository", "JdbcExportRepository", "operation", "export", "query", "films_export")
+                .timer();
+        assertEquals(1, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.MILLISECONDS) < 300);
+        assertEquals(2.0, meterRegistry.get("filmorate.repository.rows")
+                .tags("repository", "JdbcExportRepository", "query", "films_export")
+                .summary().totalAmount());
+    }
+}
@@ -1,27 +1,53 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.config.QueryExecutorConfig;
+import ru.yandex.practicum.filmorate.config.QueryStatisticsPostProcessor;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmGenre;
+import ru.yandex.practicum.filmorate.model.FilmSearchField;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.repository.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.repository.index.LikesIndex;
+import ru.yandex.practicum.filmorate.repository.index.PopularFilmsIndex;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.repository.QueryAssertions.assertMaxQueries;
 
 @JdbcTest
 @AutoConfigureTestDatabase
@@ -31,14 +57,26 @@ import static org.junit.jupiter.api.Assertions.*;
         JdbcUserRepository.class,
         JdbcMpaRepository.class,
         JdbcFilmLikeRepository.class,
-        JdbcFriendRepository.class,
-        JdbcFilmGenreRepository.class})
-@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.repository.mapper"})
+        JdbcFilmGenreRepository.class,
+        LikeWriteBuffer.class,
+        QueryFanOut.class,
+        QueryExecutorConfig.class,
+        SimpleMeterRegistry.class,
+        QueryStatisticsPostProcessor.class})
+@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.repository.mapper",
+        "ru.yandex.practicum.filmorate.repository.index"})
+@TestPropertySource(properties = "filmorate.recommendations.neighbours-cache.enabled=true")
 class JdbcFilmRepositoryTest {
     @Autowired
     private final JdbcFilmRepository jdbcFilmRepository;
     @Autowired
     private final JdbcUserRepository jdbcUserRepository;
+    @Autowired
+    private final JdbcFilmGenreRepository jdbcFilmGenreRepository;
+    @Autowired
+    private final JdbcTemplate jdbc;
+    @Autowired
+    private final MeterRegistry meterRegistry;
     private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @AllArgsConstructor
@@ -120,6 +158,21 @@ class JdbcFilmRepositoryTest {
         assertEquals(2, responseEntity.size());
     }
 
+    @Test
+    void filmReadsStayWithinQueryBudget() {
+        List<Film> films = jdbcFilmRepository.createAll(List.of(getTestFilm(1), getTestFilm(2), getTestFilm(3)));
+        long userId = jdbcUserRepository.create(getTestUser(1)).getId();
+        films.forEach(film -> jdbcFilmRepository.addLike(film.getId(), userId));
+
+        try (QueryStatistics statistics = QueryStatistics.start()) {
+            jdbcFilmRepository.findById(films.getFirst().getId());
+            assertEquals(3, statistics.count());
+            assertTrue(statistics.time().toNanos() > 0);
+        }
+        assertEquals(3, assertMaxQueries(3, jdbcFilmRepository::findAll).size());
+        assertMaxQueries(3, () -> jdbcFilmRepository.getPopular(10));
+    }
+
     @Test
     void create() {
         Film film = getTestFilm(1);
@@ -134,6 +187,20 @@ class JdbcFilmRepositoryTest {
         assertEquals(film.getDuration(), responseEntity.iterator().next().getDuration());
     }
 
+    @Test
+    void createAll() {
+        List<Film> films = jdbcFilmRepository.createAll(List.of(getTestFilm(1), getTestFilm(2)));
+
+        assertEquals(2, films.size());
+        assertNotEquals(films.get(0).getId(), films.get(1).getId());
+        for (Film film : films) {
+            Film found = jdbcFilmRepository.findById(film.getId());
+            assertEquals(film.getName(), found.getName());
+            assertEquals(film.getGenres(), found.getGenres());
+        }
+        assertEquals(2, jdbcFilmRepository.getPopular(10).size());
+    }
+
     @Test
     void update() {
         Film film = getTestFilm(1);
@@ -150,6 +217,11 @@ class JdbcFilmRepositoryTest {
         assertEquals(newFilm.getDescription(), responseEntity.iterator().next().getDescription());
         assertEquals(newFilm.getReleaseDate(), responseEntity.iterator().next().getReleaseDate());
         assertEquals(newFilm.getDuration(), responseEntity.iterator().next().getDuration());
+
+        Film unknownFilm = getTestFilm(3);
+        unknownFilm.setId(newFilm.getId() + 1);
+        unknownFilm.setGenres(Set.of(new Genre(100, "Неизвестный")));
+        assertThrows(NotFoundException.class, () -> jdbcFilmRepository.update(unknownFilm));
     }
 
     @Test
@@ -255,6 +327,280 @@ class JdbcFilmRepositoryTest {
         assertEquals(film1Id, responseEntity.get(2).getId());
     }
 
+    @Test
+    void likesCountMaintainedAndReconciled() {
+        long film1Id = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        long film2Id = jdbcFilmRepository.create(getTestFilm(2)).getId();
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user2Id = jdbcUserRepository.create(getTestUser(2)).getId();
+        jdbcFilmRepository.addLike(film1Id, user1Id);
+        jdbcFilmRepository.addLike(film1Id, user1Id);
+        jdbcFilmRepository.addLike(film2Id, user1Id);
+        jdbcFilmRepository.addLike(film2Id, user2Id);
+        jdbcFilmRepository.deleteLike(film1Id, user2Id);
+
+        assertEquals(1L, likesCount(film1Id));
+        assertEquals(2L, likesCount(film2Id));
+        assertEquals(0, jdbcFilmRepository.reconcileLikesCounts());
+
+        jdbc.update("UPDATE \"films\" SET \"likes_count\" = 10 WHERE \"film_id\" = ?", film1Id);
+        assertEquals(1, jdbcFilmRepository.reconcileLikesCounts());
+        assertEquals(1L, likesCount(film1Id));
+        assertEquals(List.of(film2Id, film1Id), jdbcFilmRepository.getPopular(10).stream()
+                .map(Film::getId)
+                .toList());
+    }
+
+    private long likesCount(long filmId) {
+        return jdbc.queryForObject("SELECT \"likes_count\" FROM \"films\" WHERE \"film_id\" = ?", Long.class,
+                filmId);
+    }
+
+    @Nested
+    @TestPropertySource(properties = "filmorate.popular.index.enabled=false")
+    class PopularFromDatabase {
+        @Autowired
+        private JdbcFilmRepository databaseFilmRepository;
+        @Autowired
+        private JdbcUserRepository databaseUserRepository;
+        @Autowired
+        private PopularFilmsIndex databasePopularFilmsIndex;
+
+        @Test
+        void getPopularByLikesCount() {
+            long film1Id = databaseFilmRepository.create(getTestFilm(1)).getId();
+            long film2Id = databaseFilmRepository.create(getTestFilm(2)).getId();
+            long film3Id = databaseFilmRepository.create(getTestFilm(3)).getId();
+            long user1Id = databaseUserRepository.create(getTestUser(1)).getId();
+            long user2Id = databaseUserRepository.create(getTestUser(2)).getId();
+            databaseFilmRepository.addLike(film2Id, user1Id);
+            databaseFilmRepository.addLike(film2Id, user2Id);
+            databaseFilmRepository.addLike(film3Id, user1Id);
+
+            List<Film> popular = databaseFilmRepository.getPopular(2);
+            assertEquals(List.of(film2Id, film3Id), popular.stream()
+                    .map(Film::getId)
+                    .toList());
+            assertEquals(Set.of(user1Id, user2Id), popular.getFirst().getLikes());
+            assertEquals(getTestFilm(2).getGenres(), popular.getFirst().getGenres());
+            assertEquals(List.of(film1Id), databaseFilmRepository.getPopular(10, 1, null).stream()
+                    .map(Film::getId)
+                    .toList());
+            int year = LocalDate.now().minusYears(1).getYear();
+            assertEquals(List.of(film2Id), databaseFilmRepository.getPopular(10, 3, year).stream()
+                    .map(Film::getId)
+                    .toList());
+        }
+
+        @Test
+        void getPopularWithZeroFiltersMatchesIndex() {
+            long filmId = databaseFilmRepository.create(getTestFilm(1)).getId();
+            long userId = databaseUserRepository.create(getTestUser(1)).getId();
+            databaseFilmRepository.addLike(filmId, userId);
+
+            for (Integer[] filter : new Integer[][]{{0, null}, {null, 0}, {0, 0}, {null, null}}) {
+                assertEquals(databaseFilmRepository.getPopular(10, filter[0], filter[1]).stream()
+                                .map(Film::getId)
+                                .toList(),
+                        databasePopularFilmsIndex.getTop(10, filter[0], filter[1]).stream()
+                                .map(Film::getId)
+                                .toList(),
+                        Arrays.toString(filter));
+            }
+            assertTrue(databasePopularFilmsIndex.getTop(10, 0, null).isEmpty());
+        }
+    }
+
+    @Nested
+    @TestPropertySource(properties = {
+            "filmorate.likes.write-behind.enabled=true",
+            "filmorate.likes.write-behind.flush-interval=1h"})
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    class WriteBehindLikes {
+        @Autowired
+        private JdbcFilmRepository bufferedFilmRepository;
+        @Autowired
+        private JdbcUserRepository bufferedUserRepository;
+        @Autowired
+        private LikeWriteBuffer likeWriteBuffer;
+        @Autowired
+        private JdbcTemplate bufferedJdbc;
+        @Autowired
+        private PlatformTransactionManager bufferedTransactionManager;
+        @Autowired
+        private PopularFilmsIndex bufferedPopularFilmsIndex;
+        @Autowired
+        private LikesIndex bufferedLikesIndex;
+        @Autowired
+        private FilmSearchIndex bufferedFilmSearchIndex;
+
+        @AfterEach
+        void deleteCommittedData() {
+            likeWriteBuffer.flush();
+            bufferedJdbc.update("DELETE FROM \"likes\"");
+            bufferedJdbc.update("DELETE FROM \"films_genre\"");
+            bufferedJdbc.update("DELETE FROM \"films\"");
+            bufferedJdbc.update("DELETE FROM \"friends\"");
+            bufferedJdbc.update("DELETE FROM \"users\"");
+            bufferedPopularFilmsIndex.load();
+            bufferedLikesIndex.load();
+            bufferedFilmSearchIndex.load();
+        }
+
+        @Test
+        void likesAreCoalescedAndFlushedInBatches() {
+            long film1Id = bufferedFilmRepository.create(getTestFilm(1)).getId();
+            long film2Id = bufferedFilmRepository.create(getTestFilm(2)).getId();
+            long user1Id = bufferedUserRepository.create(getTestUser(1)).getId();
+            long user2Id = bufferedUserRepository.create(getTestUser(2)).getId();
+
+            bufferedFilmRepository.addLike(film1Id, user1Id);
+            bufferedFilmRepository.addLike(film1Id, user2Id);
+            bufferedFilmRepository.addLike(film2Id, user1Id);
+            bufferedFilmRepository.deleteLike(film2Id, user1Id);
+            assertEquals(3, likeWriteBuffer.size());
+            assertEquals(0L, bufferedLikesCount(film1Id));
+
+            likeWriteBuffer.flush();
+            assertEquals(0, likeWriteBuffer.size());
+            assertEquals(2L, bufferedLikesCount(film1Id));
+            assertEquals(0L, bufferedLikesCount(film2Id));
+            assertEquals(Set.of(user1Id, user2Id), bufferedFilmRepository.findById(film1Id).getLikes());
+            assertEquals(film1Id, bufferedFilmRepository.getPopular(1).getFirst().getId());
+
+            bufferedFilmRepository.deleteLike(film1Id, user1Id);
+            bufferedFilmRepository.addLike(film1Id, user1Id);
+            likeWriteBuffer.flush();
+            assertEquals(2L, bufferedLikesCount(film1Id));
+            assertThrows(NotFoundException.class, () -> bufferedFilmRepository.addLike(-1, user1Id));
+        }
+
+        @Test
+        void flushSurvivesCallerRollbackAndDropsBrokenLikes() {
+            long film1Id = bufferedFilmRepository.create(getTestFilm(1)).getId();
+            long film2Id = bufferedFilmRepository.create(getTestFilm(2)).getId();
+            long user1Id = bufferedUserRepository.create(getTestUser(1)).getId();
+            long user2Id = bufferedUserRepository.create(getTestUser(2)).getId();
+
+            bufferedFilmRepository.addLike(film1Id, user1Id);
+            likeWriteBuffer.like(-1, user1Id);
+            bufferedFilmRepository.addLike(film2Id, user2Id);
+            new TransactionTemplate(bufferedTransactionManager).executeWithoutResult(status -> {
+                likeWriteBuffer.flush();
+                status.setRollbackOnly();
+            });
+
+            assertEquals(0, likeWriteBuffer.size());
+            assertEquals(1L, bufferedLikesCount(film1Id));
+            assertEquals(1L, bufferedLikesCount(film2Id));
+            assertEquals(1L, bufferedPopularFilmsIndex.getLikesCount(film1Id));
+            assertEquals(Set.of(user2Id), bufferedFilmRepository.findById(film2Id).getLikes());
+        }
+
+        @Test
+        void likesCountIncludesBufferedLikes() {
+            long filmId = bufferedFilmRepository.create(getTestFilm(1)).getId();
+            long user1Id = bufferedUserRepository.create(getTestUser(1)).getId();
+            long user2Id = bufferedUserRepository.create(getTestUser(2)).getId();
+
+            assertEquals(1L, bufferedFilmRepository.addLikeGetCount(filmId, user1Id));
+            assertEquals(1L, bufferedFilmRepository.addLikeGetCount(filmId, user1Id));
+            assertEquals(2L, bufferedFilmRepository.addLikeGetCount(filmId, user2Id));
+            assertEquals(0L, bufferedLikesCount(filmId));
+
+            likeWriteBuffer.flush();
+            assertEquals(2L, bufferedLikesCount(filmId));
+            assertEquals(1L, bufferedFilmRepository.deleteLikeGetCount(filmId, user1Id));
+            assertEquals(1L, bufferedFilmRepository.deleteLikeGetCount(filmId, user1Id));
+            assertEquals(2L, bufferedFilmRepository.addLikeGetCount(filmId, user1Id));
+            assertEquals(1, likeWriteBuffer.size());
+
+            likeWriteBuffer.flush();
+            assertEquals(0, likeWriteBuffer.size());
+            assertEquals(2L, bufferedLikesCount(filmId));
+            assertEquals(2L, bufferedPopularFilmsIndex.getLikesCount(filmId));
+        }
+
+        @Test
+        void rolledBackLikeRestoresIndexVersion() {
+            long filmId = bufferedFilmRepository.create(getTestFilm(1)).getId();
+            Film before = bufferedPopularFilmsIndex.getTop(1).getFirst();
+
+            new TransactionTemplate(bufferedTransactionManager).executeWithoutResult(status -> {
+                bufferedPopularFilmsIndex.likeAdded(filmId);
+                assertEquals(before.getVersion() + 1, bufferedPopularFilmsIndex.findFilm(filmId).orElseThrow()
+                        .getVersion());
+                status.setRollbackOnly();
+            });
+
+            assertEquals(0L, bufferedPopularFilmsIndex.getLikesCount(filmId));
+            assertEquals(bufferedJdbc.queryForObject("SELECT \"version\" FROM \"films\" WHERE \"film_id\" = ?",
+                    Long.class, filmId), bufferedPopularFilmsIndex.findFilm(filmId).orElseThrow().getVersion());
+            assertEquals(before.getVersion(), bufferedPopularFilmsIndex.getTopVersions(1, null, null).getFirst()
+                    .version());
+        }
+
+        private long bufferedLikesCount(long filmId) {
+            return bufferedJdbc.queryForObject("SELECT \"likes_count\" FROM \"films\" WHERE \"film_id\" = ?",
+                    Long.class, filmId);
+        }
+    }
+
+    @Test
+    void versionBumpedByWrites() {
+        Film film = jdbcFilmRepository.create(getTestFilm(1));
+        long userId = jdbcUserRepository.create(getTestUser(1)).getId();
+        assertEquals(0L, jdbcFilmRepository.findVersion(film.getId()).version());
+
+        jdbcFilmRepository.addLike(film.getId(), userId);
+        jdbcFilmRepository.addLike(film.getId(), userId);
+        assertEquals(1L, jdbcFilmRepository.findVersion(film.getId()).version());
+        List<EntityVersion> popular = jdbcFilmRepository.findPopularVersions(1, null, null);
+
+        film.setDescription("Новое описание");
+        assertEquals(2L, jdbcFilmRepository.update(film).getVersion());
+        assertEquals(2L, jdbcFilmRepository.findVersion(film.getId()).version());
+        assertNotEquals(popular, jdbcFilmRepository.findPopularVersions(1, null, null));
+
+        jdbcFilmRepository.deleteLike(film.getId(), userId);
+        assertEquals(3L, jdbcFilmRepository.findVersion(film.getId()).version());
+        assertThrows(NotFoundException.class, () -> jdbcFilmRepository.findVersion(-1));
+    }
+
+    @Test
+    void repositoryQueriesTimedByQueryName() {
+        Film film = jdbcFilmRepository.create(getTestFilm(1));
+        long before = meterRegistry.find("filmorate.repository.query")
+                .tags("repository", "JdbcFilmRepository", "operation", "findMany", "query", "films_find_by_id")
+                .timers().stream().mapToLong(Timer::count).sum();
+
+        jdbcFilmRepository.findById(film.getId());
+        assertThrows(NotFoundException.class, () -> jdbcFilmRepository.findById(-1));
+
+        Timer timer = meterRegistry.get("filmorate.repository.query")
+                .tags("repository", "JdbcFilmRepository", "operation", "findMany", "query", "films_find_by_id")
+                .timer();
+        assertEquals(before + 2, timer.count());
+        assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+        DistributionSummary rows = meterRegistry.get("filmorate.repository.rows")
+                .tags("repository", "JdbcFilmRepository", "operation", "findMany", "query", "films_find_by_id")
+                .summary();
+        assertEquals(timer.count(), rows.count());
+        assertEquals(1.0, rows.max());
+        assertTrue(meterRegistry.get("filmorate.repository.query")
+                .tags("operation", "batchInsertGetKeys", "query", "films_insert")
+                .timer().count() > 0);
+
+        long userId = jdbcUserRepository.create(getTestUser(1)).getId();
+        jdbcFilmRepository.addLike(film.getId(), userId);
+        jdbcFilmRepository.findVersion(film.getId());
+        for (String query : List.of("films_add_like", "films_change_likes_count", "films_find_version")) {
+            assertTrue(meterRegistry.get("filmorate.repository.query")
+                    .tags("repository", "JdbcFilmRepository", "query", query)
+                    .timer().count() > 0, query);
+        }
+    }
+
     @Test
     void getPopularCount1() {
         Film film1 = getTestFilm(1);
@@ -280,5 +626,241 @@ class JdbcFilmRepositoryTest {
         assertNotNull(responseEntity);
         assertEquals(1, responseEntity.size());
         assertEquals(film1Id, responseEntity.getFirst().getId());
+        assertEquals(Set.of(user1Id, user2Id, user3Id), responseEntity.getFirst().getLikes());
+        assertEquals(Set.of(user1Id, user2Id), jdbcFilmRepository.addLike(film2Id, user1Id).getLikes());
+    }
+
+    @Test
+    void getPopularTiesOrderedById() {
+        long film1Id = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        long film2Id = jdbcFilmRepository.create(getTestFilm(2)).getId();
+        long film3Id = jdbcFilmRepository.create(getTestFilm(3)).getId();
+
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user2Id = jdbcUserRepository.create(getTestUser(2)).getId();
+
+        jdbcFilmRepository.addLike(film3Id, user1Id);
+        jdbcFilmRepository.addLike(film3Id, user2Id);
+        jdbcFilmRepository.addLike(film2Id, user1Id);
+        jdbcFilmRepository.addLike(film1Id, user1Id);
+        jdbcFilmRepository.deleteLike(film3Id, user2Id);
+
+        ArrayList<Film> responseEntity = new ArrayList<>(jdbcFilmRepository.getPopular(10L));
+        assertEquals(3, responseEntity.size());
+        assertEquals(film1Id, responseEntity.get(0).getId());
+        assertEquals(film2Id, responseEntity.get(1).getId());
+        assertEquals(film3Id, responseEntity.get(2).getId());
+    }
+
+    @Test
+    void getPopularByGenreAndYear() {
+        long film1Id = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        Film film2 = jdbcFilmRepository.create(getTestFilm(2));
+        long userId = jdbcUserRepository.create(getTestUser(1)).getId();
+        int year = LocalDate.now().getYear();
+
+        assertEquals(List.of(film1Id), jdbcFilmRepository.getPopular(10, 1, null).stream()
+                .map(Film::getId)
+                .toList());
+        assertEquals(List.of(film2.getId()), jdbcFilmRepository.getPopular(10, null, year - 1).stream()
+                .map(Film::getId)
+                .toList());
+        assertTrue(jdbcFilmRepository.getPopular(10, 5, null).isEmpty());
+
+        film2.setReleaseDate(LocalDate.now());
+        film2.setGenres(Set.of(new Genre(1, "Комедия")));
+        jdbcFilmRepository.update(film2);
+        jdbcFilmRepository.addLike(film2.getId(), userId);
+
+        List<Film> popular = jdbcFilmRepository.getPopular(10, 1, year);
+        assertEquals(List.of(film2.getId(), film1Id), popular.stream()
+                .map(Film::getId)
+                .toList());
+        assertEquals(List.of(new Genre(1, "Комедия")), popular.getFirst().getGenres());
+        assertTrue(jdbcFilmRepository.getPopular(10, 3, null).isEmpty());
+        assertTrue(jdbcFilmRepository.getPopular(10, null, year - 1).isEmpty());
+    }
+
+    @Test
+    void findRecommendations() {
+        long film1Id = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        long film2Id = jdbcFilmRepository.create(getTestFilm(2)).getId();
+        long film3Id = jdbcFilmRepository.create(getTestFilm(3)).getId();
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user2Id = jdbcUserRepository.create(getTestUser(2)).getId();
+        long user3Id = jdbcUserRepository.create(getTestUser(3)).getId();
+        jdbcFilmRepository.addLike(film1Id, user1Id);
+        jdbcFilmRepository.addLike(film1Id, user2Id);
+        jdbcFilmRepository.addLike(film2Id, user2Id);
+        jdbcFilmRepository.addLike(film3Id, user2Id);
+        jdbcFilmRepository.addLike(film1Id, user3Id);
+        jdbcFilmRepository.addLike(film3Id, user3Id);
+
+        assertEquals(List.of(film3Id, film2Id), jdbcFilmRepository.findRecommendations(user1Id, 10).stream()
+                .map(Film::getId)
+                .toList());
+
+        jdbcFilmRepository.deleteLike(film1Id, user3Id);
+        assertEquals(List.of(film2Id, film3Id), jdbcFilmRepository.findRecommendations(user1Id, 10).stream()
+                .map(Film::getId)
+                .toList());
+        assertEquals(Set.of(user2Id), jdbcFilmRepository.findRecommendations(user1Id, 1).getFirst().getLikes());
+        assertEquals(List.of(film1Id, film2Id), jdbcFilmRepository.findRecommendations(user3Id, 10).stream()
+                .map(Film::getId)
+                .toList());
+        assertThrows(NotFoundException.class, () -> jdbcFilmRepository.findRecommendations(-1, 10));
+    }
+
+    @Test
+    void search() {
+        Film film1 = getTestFilm(1);
+        film1.setName("Ёлки зелёные");
+        film1.setDescription("Новогодняя комедия");
+        film1 = jdbcFilmRepository.create(film1);
+        Film film2 = getTestFilm(2);
+        film2.setName("Комедия положений");
+        film2.setDescription("Про ёлку");
+        film2 = jdbcFilmRepository.create(film2);
+        long film1Id = film1.getId();
+        long film2Id = film2.getId();
+
+        assertEquals(List.of(film1Id), searchIds("ЕЛКИ", EnumSet.allOf(FilmSearchField.class)));
+        assertEquals(List.of(film1Id, film2Id), searchIds("ёлк", EnumSet.allOf(FilmSearchField.class)));
+        assertEquals(List.of(film2Id), searchIds("комедия положений", EnumSet.allOf(FilmSearchField.class)));
+        assertEquals(List.of(film1Id), searchIds("комедия", EnumSet.of(FilmSearchField.DESCRIPTION)));
+        assertEquals(List.of(film2Id, film1Id), searchIds("комедия", EnumSet.allOf(FilmSearchField.class)));
+
+        for (int i = 1; i <= 3; i++) {
+            jdbcFilmRepository.addLike(film1Id, jdbcUserRepository.create(getTestUser(i)).getId());
+        }
+        assertEquals(List.of(film1Id, film2Id), searchIds("комедия", EnumSet.allOf(FilmSearchField.class)));
+
+        film1.setName("Лес");
+        jdbcFilmRepository.update(film1);
+        assertEquals(List.of(film2Id), searchIds("ёлк", EnumSet.allOf(FilmSearchField.class)));
+        assertEquals(List.of(film1Id), searchIds("лес", EnumSet.of(FilmSearchField.TITLE)));
+        assertThrows(ParameterNotValidException.class,
+                () -> jdbcFilmRepository.search(" ", EnumSet.allOf(FilmSearchField.class), 10));
+        assertEquals(1, jdbcFilmRepository.search("лес", EnumSet.of(FilmSearchField.TITLE), Integer.MAX_VALUE)
+                .size());
+    }
+
+    private List<Long> searchIds(String query, Set<FilmSearchField> by) {
+        return jdbcFilmRepository.search(query, by, 10).stream()
+                .map(Film::getId)
+                .toList();
+    }
+
+    @Test
+    void findGenresOfManyFilms() {
+        long film1Id = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        long film2Id = jdbcFilmRepository.create(getTestFilm(2)).getId();
+        List<Long> filmIds = new ArrayList<>();
+        filmIds.add(film1Id);
+        for (long id = film2Id + 1; filmIds.size() < 1234; id++) {
+            filmIds.add(id);
+        }
+        filmIds.add(film2Id);
+
+        List<FilmGenre> filmGenres = jdbcFilmGenreRepository.findGenresOfFilms(filmIds);
+        assertEquals(3, filmGenres.size());
+        assertEquals(2, filmGenres.stream().filter(filmGenre -> filmGenre.getFilmId() == film1Id).count());
+        assertEquals(1, filmGenres.stream().filter(filmGenre -> filmGenre.getFilmId() == film2Id).count());
+        assertTrue(jdbcFilmGenreRepository.findGenresOfFilms(List.of()).isEmpty());
+    }
+
+    @Test
+    void findPage() {
+        long film1Id = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        long film2Id = jdbcFilmRepository.create(getTestFilm(2)).getId();
+        long film3Id = jdbcFilmRepository.create(getTestFilm(3)).getId();
+
+        List<Film> firstPage = jdbcFilmRepository.findPage(0, 2);
+        assertEquals(List.of(film1Id, film2Id), firstPage.stream().map(Film::getId).toList());
+        assertEquals(2, firstPage.getFirst().getGenres().size());
+
+        List<Film> secondPage = jdbcFilmRepository.findPage(film2Id, 2);
+        assertEquals(List.of(film3Id), secondPage.stream().map(Film::getId).toList());
+        assertTrue(jdbcFilmRepository.findPage(film3Id, 2).isEmpty());
+        assertThrows(ParameterNotValidException.class, () -> jdbcFilmRepository.findPage(0, 0));
+    }
+
+    @Test
+    void streamAll() {
+        long film1Id = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        long film2Id = jdbcFilmRepository.create(getTestFilm(2)).getId();
+        long userId = jdbcUserRepository.create(getTestUser(1)).getId();
+        jdbcFilmRepository.addLike(film2Id, userId);
+
+        List<Film> films = new ArrayList<>();
+        jdbcFilmRepository.streamAll(films::add);
+        assertEquals(List.of(film1Id, film2Id), films.stream().map(Film::getId).toList());
+        assertEquals(2, films.get(0).getGenres().size());
+        assertEquals(Set.of(userId), films.get(1).getLikes());
+    }
+
+    @Test
+    void createWithUnknownGenreOrMpa() {
+        Film filmWithUnknownGenre = getTestFilm(1);
+        filmWithUnknownGenre.setGenres(Set.of(new Genre(999, null)));
+        assertThrows(ParameterNotValidException.class, () -> jdbcFilmRepository.create(filmWithUnknownGenre));
+
+        Film filmWithUnknownMpa = getTestFilm(2);
+        filmWithUnknownMpa.setMpa(new Mpa(999, null));
+        assertThrows(ParameterNotValidException.class, () -> jdbcFilmRepository.create(filmWithUnknownMpa));
+
+        Film film = getTestFilm(3);
+        film.setMpa(new Mpa(3, null));
+        assertEquals("PG-13", jdbcFilmRepository.create(film).getMpa().getName());
+        assertTrue(jdbcFilmRepository.findAll().stream().noneMatch(f -> f.getName().equals("Фильм №1")));
+    }
+
+    @Test
+    void addLikeTwice() {
+        long filmId = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user2Id = jdbcUserRepository.create(getTestUser(2)).getId();
+
+        Film film = jdbcFilmRepository.addLike(filmId, user1Id);
+        assertEquals(Set.of(user1Id), film.getLikes());
+        jdbcFilmRepository.addLike(filmId, user1Id);
+        assertEquals(2, jdbcFilmRepository.addLikeGetCount(filmId, user2Id));
+        assertEquals(2, jdbcFilmRepository.findById(filmId).getLikesCount());
+        assertEquals(1, jdbcFilmRepository.deleteLikeGetCount(filmId, user2Id));
+        assertEquals(1, jdbcFilmRepository.deleteLikeGetCount(filmId, user2Id));
+    }
+
+    @Test
+    void addLikeNotFound() {
+        long filmId = jdbcFilmRepository.create(getTestFilm(1)).getId();
+        long userId = jdbcUserRepository.create(getTestUser(1)).getId();
+
+        NotFoundException userNotFound = assertThrows(NotFoundException.class,
+                () -> jdbcFilmRepository.addLike(filmId, userId + 1));
+        assertEquals("Пользователь с id = " + (userId + 1) + " не найден", userNotFound.getMessage());
+        NotFoundException filmNotFound = assertThrows(NotFoundException.class,
+                () -> jdbcFilmRepository.addLike(filmId + 1, userId));
+        assertEquals("Фильм с id = " + (filmId + 1) + " не найден", filmNotFound.getMessage());
+        assertThrows(NotFoundException.class, () -> jdbcFilmRepository.deleteLike(filmId, userId + 1));
+        assertThrows(NotFoundException.class, () -> jdbcFilmRepository.deleteLike(filmId + 1, userId));
+        assertEquals(0, jdbcFilmRepository.findById(filmId).getLikesCount());
+    }
+
+    @Test
+    void updateGenres() {
+        Film film = jdbcFilmRepository.create(getTestFilm(1));
+        assertEquals(List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")), film.getGenres());
+        assertEquals("Комедия", film.getGenres().getFirst().getName());
+
+        Film newFilm = getTestFilm(1);
+        newFilm.setId(film.getId());
+        newFilm.setGenres(Set.of(new Genre(2, null), new Genre(6, null)));
+        Film updated = jdbcFilmRepository.update(newFilm);
+        assertEquals(List.of("Драма", "Боевик"), updated.getGenres().stream().map(Genre::getName).toList());
+        assertEquals(updated.getGenres(), jdbcFilmRepository.findById(film.getId()).getGenres());
+
+        Film unknownFilm = getTestFilm(2);
+        unknownFilm.setId(film.getId() + 1);
+        assertThrows(NotFoundException.class, () -> jdbcFilmRepository.update(unknownFilm));
     }
 }
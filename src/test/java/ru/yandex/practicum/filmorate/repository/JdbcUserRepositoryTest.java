@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.repository;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
@@ -13,14 +14,26 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.test.context.ContextConfiguration;
+import ru.yandex.practicum.filmorate.config.QueryExecutorConfig;
+import ru.yandex.practicum.filmorate.config.QueryStatisticsPostProcessor;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ParameterNotValidException;
+import ru.yandex.practicum.filmorate.model.BulkImportResult;
+import ru.yandex.practicum.filmorate.model.EntityVersion;
 import ru.yandex.practicum.filmorate.model.Friend;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.BulkImporter;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static ru.yandex.practicum.filmorate.repository.QueryAssertions.assertMaxQueries;
 
 @JdbcTest
 @AutoConfigureTestDatabase
@@ -30,9 +43,12 @@ import static org.junit.jupiter.api.Assertions.*;
         JdbcUserRepository.class,
         JdbcMpaRepository.class,
         JdbcFilmLikeRepository.class,
-        JdbcFriendRepository.class,
-        JdbcFilmGenreRepository.class})
-@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.repository.mapper"})
+        JdbcFilmGenreRepository.class,
+        QueryFanOut.class,
+        QueryExecutorConfig.class,
+        QueryStatisticsPostProcessor.class})
+@ComponentScan(basePackages = {"ru.yandex.practicum.filmorate.repository.mapper",
+        "ru.yandex.practicum.filmorate.repository.index"})
 class JdbcUserRepositoryTest {
     @Autowired
     private final JdbcUserRepository jdbcUserRepository;
@@ -68,6 +84,25 @@ class JdbcUserRepositoryTest {
         };
     }
 
+    @Test
+    void friendsVersionsChangeWithFriends() {
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        User user2 = jdbcUserRepository.create(getTestUser(2));
+        User user3 = jdbcUserRepository.create(getTestUser(3));
+
+        jdbcUserRepository.addToFriends(user1Id, user2.getId());
+        List<EntityVersion> versions = jdbcUserRepository.findFriendsVersions(user1Id);
+        assertEquals(List.of(new EntityVersion(user2.getId(), 0)), versions);
+        assertEquals(versions, jdbcUserRepository.findFriendsVersions(user1Id));
+
+        jdbcUserRepository.addToFriends(user2.getId(), user3.getId());
+        assertEquals(List.of(new EntityVersion(user2.getId(), 1)), jdbcUserRepository.findFriendsVersions(user1Id));
+
+        jdbcUserRepository.deleteFromFriends(user1Id, user2.getId());
+        assertEquals(List.of(), jdbcUserRepository.findFriendsVersions(user1Id));
+        assertThrows(NotFoundException.class, () -> jdbcUserRepository.findFriendsVersions(-1));
+    }
+
     @Test
     void findAll() {
         User user = getTestUser(1);
@@ -80,6 +115,20 @@ class JdbcUserRepositoryTest {
         assertEquals(2, responseEntity.size());
     }
 
+    @Test
+    void friendsReadsStayWithinQueryBudget() {
+        long userId = jdbcUserRepository.create(getTestUser(1)).getId();
+        long friendId = jdbcUserRepository.create(getTestUser(2)).getId();
+        long otherId = jdbcUserRepository.create(getTestUser(3)).getId();
+        jdbcUserRepository.addToFriends(userId, friendId);
+        jdbcUserRepository.addToFriends(userId, otherId);
+        jdbcUserRepository.addToFriends(otherId, friendId);
+
+        assertEquals(3, assertMaxQueries(1, jdbcUserRepository::findAll).size());
+        assertEquals(2, assertMaxQueries(2, () -> jdbcUserRepository.findAllFriends(userId)).size());
+        assertEquals(1, assertMaxQueries(2, () -> jdbcUserRepository.findCommonFriends(userId, otherId)).size());
+    }
+
     @Test
     void create() {
         User user = getTestUser(1);
@@ -93,6 +142,40 @@ class JdbcUserRepositoryTest {
         assertEquals(user.getBirthday(), responseEntity.iterator().next().getBirthday());
     }
 
+    @Test
+    void createAll() {
+        List<User> users = jdbcUserRepository.createAll(List.of(getTestUser(1), getTestUser(2)));
+
+        assertEquals(2, users.size());
+        assertNotEquals(users.get(0).getId(), users.get(1).getId());
+        assertTrue(jdbcUserRepository.checkUserExists(users.get(0).getId()));
+        assertTrue(jdbcUserRepository.checkUserExists(users.get(1).getId()));
+        assertEquals(2, jdbcUserRepository.findAll().size());
+    }
+
+    @Test
+    void importUserWithoutBirthday() {
+        BulkImporter bulkImporter = new BulkImporter(new ObjectMapper().findAndRegisterModules(), validator);
+        String input = """
+                {"email": "user@ya.ru", "login": "userLogin1", "name": "User 1"}
+                """;
+
+        BulkImportResult result = bulkImporter.importRows(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)),
+                User.class,
+                jdbcUserRepository::createAll);
+
+        assertEquals(1, result.getImported());
+        assertEquals(0, result.getFailed());
+        List<User> users = jdbcUserRepository.findAll();
+        assertEquals(1, users.size());
+        assertEquals("userLogin1", users.getFirst().getLogin());
+        assertNull(users.getFirst().getBirthday());
+        User friend = jdbcUserRepository.create(getTestUser(2));
+        jdbcUserRepository.addToFriends(friend.getId(), users.getFirst().getId());
+        assertNull(jdbcUserRepository.findAllFriends(friend.getId()).getFirst().getBirthday());
+    }
+
     @Test
     void update() {
         User user = getTestUser(1);
@@ -314,4 +397,90 @@ class JdbcUserRepositoryTest {
         assertEquals(1, responseEntity.size());
         assertEquals(responseEntity.getFirst().getId(), user1Id);
     }
+
+    @Test
+    void findFriendSuggestions() {
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user2Id = jdbcUserRepository.create(getTestUser(2)).getId();
+        long user3Id = jdbcUserRepository.create(getTestUser(3)).getId();
+        long user4Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user5Id = jdbcUserRepository.create(getTestUser(2)).getId();
+        jdbcUserRepository.addToFriends(user1Id, user2Id);
+        jdbcUserRepository.addToFriends(user1Id, user3Id);
+        jdbcUserRepository.addToFriends(user2Id, user4Id);
+        jdbcUserRepository.addToFriends(user3Id, user4Id);
+        jdbcUserRepository.addToFriends(user5Id, user3Id);
+        jdbcUserRepository.addToFriends(user2Id, user3Id);
+
+        List<FriendSuggestion> suggestions = jdbcUserRepository.findFriendSuggestions(user1Id, 10);
+        assertEquals(List.of(user4Id, user5Id), suggestions.stream()
+                .map(suggestion -> suggestion.getUser().getId())
+                .toList());
+        assertEquals(List.of(2, 1), suggestions.stream()
+                .map(FriendSuggestion::getMutualFriends)
+                .toList());
+        assertEquals(1, jdbcUserRepository.findFriendSuggestions(user1Id, 1).size());
+        assertThrows(ParameterNotValidException.class, () -> jdbcUserRepository.findFriendSuggestions(user1Id, 0));
+    }
+
+    @Test
+    void findCommonFriendsAfterDelete() {
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user2Id = jdbcUserRepository.create(getTestUser(2)).getId();
+        long user3Id = jdbcUserRepository.create(getTestUser(3)).getId();
+        jdbcUserRepository.addToFriends(user1Id, user2Id);
+        jdbcUserRepository.addToFriends(user2Id, user1Id);
+        jdbcUserRepository.addToFriends(user1Id, user3Id);
+
+        jdbcUserRepository.deleteFromFriends(user1Id, user2Id);
+        assertEquals(List.of(user1Id), jdbcUserRepository.findCommonFriends(user2Id, user3Id).stream()
+                .map(User::getId)
+                .toList());
+        assertEquals(List.of(user3Id), jdbcUserRepository.findAllFriends(user1Id).stream()
+                .map(User::getId)
+                .toList());
+
+        jdbcUserRepository.deleteFromFriends(user2Id, user1Id);
+        assertTrue(jdbcUserRepository.findCommonFriends(user2Id, user3Id).isEmpty());
+    }
+
+    @Test
+    void findAllWithoutFriends() {
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user2Id = jdbcUserRepository.create(getTestUser(2)).getId();
+        long user3Id = jdbcUserRepository.create(getTestUser(3)).getId();
+        jdbcUserRepository.addToFriends(user1Id, user2Id);
+        jdbcUserRepository.addToFriends(user2Id, user3Id);
+
+        List<User> withFriends = jdbcUserRepository.findAll(true);
+        assertEquals(Set.of(new Friend(user2Id, 2)), withFriends.get(0).getFriends());
+        assertEquals(Set.of(new Friend(user3Id, 2)), withFriends.get(1).getFriends());
+        assertTrue(withFriends.get(2).getFriends().isEmpty());
+
+        List<User> withoutFriends = jdbcUserRepository.findAll(false);
+        assertEquals(3, withoutFriends.size());
+        assertTrue(withoutFriends.stream().allMatch(u -> u.getFriends().isEmpty()));
+
+        List<User> friends = jdbcUserRepository.findAllFriends(user1Id);
+        assertEquals(1, friends.size());
+        assertEquals(Set.of(new Friend(user3Id, 2)), friends.getFirst().getFriends());
+    }
+
+    @Test
+    void findPage() {
+        long user1Id = jdbcUserRepository.create(getTestUser(1)).getId();
+        long user2Id = jdbcUserRepository.create(getTestUser(2)).getId();
+        long user3Id = jdbcUserRepository.create(getTestUser(3)).getId();
+        jdbcUserRepository.addToFriends(user2Id, user3Id);
+
+        List<User> page = jdbcUserRepository.findPage(user1Id, 1, true);
+        assertEquals(1, page.size());
+        assertEquals(user2Id, page.getFirst().getId());
+        assertEquals(Set.of(new Friend(user3Id, 2)), page.getFirst().getFriends());
+
+        List<User> streamed = new ArrayList<>();
+        jdbcUserRepository.streamAll(false, streamed::add);
+        assertEquals(List.of(user1Id, user2Id, user3Id), streamed.stream().map(User::getId).toList());
+        assertTrue(streamed.get(1).getFriends().isEmpty());
+    }
 }
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class QueryAssertions {
+    private QueryAssertions() {
+    }
+
+    static <T> T assertMaxQueries(int max, Supplier<T> call) {
+        try (QueryStatistics statistics = QueryStatistics.start()) {
+            T result = call.get();
+            assertTrue(statistics.count() <= max, () -> "Ожидалось не более " + max
+                    + " запросов к базе данных, выполнено " + statistics.count());
+            return result;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryFanOutTest {
+    private static final String HEAVY_QUERY = """
+            SELECT COUNT(*) FROM SYSTEM_RANGE(1, 10000000000) WHERE MOD(X, 7) = 3;
+            """;
+
+    @Test
+    void cancelsSiblingsOnFailure() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Runnable failing = () -> {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new NotFoundException("Фильм не найден");
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            QueryFanOut fanOut = new QueryFanOut(executor, 8, Duration.ofSeconds(5), null);
+            assertThrows(NotFoundException.class, () -> fanOut.runAll(List.of(failing, slow(started, interrupted))));
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void cancelsSiblingsOnTimeout() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            QueryFanOut fanOut = new QueryFanOut(executor, 8, Duration.ofMillis(100), null);
+            assertThrows(InternalServerException.class, () -> fanOut.runAll(List.of(() -> {
+            }, slow(started, interrupted))));
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void timesOutInlineQuery() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            QueryFanOut fanOut = new QueryFanOut(executor, 8, Duration.ofMillis(200), null);
+            InternalServerException e = assertThrows(InternalServerException.class,
+                    () -> fanOut.runAll(List.of(heavy(finished), () -> {
+                    })));
+            assertEquals("Превышено время ожидания ответа базы данных", e.getMessage());
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void cancelsRunningStatementsOnTimeout() throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            QueryFanOut fanOut = new QueryFanOut(executor, 8, Duration.ofMillis(200), null);
+            InternalServerException e = assertThrows(InternalServerException.class,
+                    () -> fanOut.runAll(List.of(() -> {
+                    }, heavy(finished))));
+            assertEquals("Превышено время ожидания ответа базы данных", e.getMessage());
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void runsInlineWhenConnectionsAreBusy() throws SQLException {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:fan-out;DB_CLOSE_DELAY=-1"), 1, Duration.ofMillis(100));
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        Runnable query = () -> threads.add(Thread.currentThread());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            QueryFanOut fanOut = new QueryFanOut(executor, 8, Duration.ofSeconds(5), dataSource);
+            try (Connection ignored = dataSource.getConnection()) {
+                fanOut.runAll(List.of(query, query));
+                assertEquals(List.of(Thread.currentThread(), Thread.currentThread()), threads);
+                Future<Connection> other = executor.submit(() -> dataSource.getConnection());
+                ExecutionException e = assertThrows(ExecutionException.class, other::get);
+                assertInstanceOf(SQLTransientConnectionException.class, e.getCause());
+            }
+            threads.clear();
+            fanOut.runAll(List.of(query, query));
+            assertNotEquals(threads.get(0), threads.get(1));
+            assertTrue(dataSource.tryAcquire());
+        }
+    }
+
+    private static Runnable heavy(CountDownLatch finished) {
+        JdbcTemplate jdbc = new JdbcTemplate(new QueryStatisticsDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:fan-out;DB_CLOSE_DELAY=-1"), Duration.ofMinutes(1)));
+        return () -> {
+            try {
+                jdbc.queryForObject(HEAVY_QUERY, Long.class);
+            } finally {
+                finished.countDown();
+            }
+        };
+    }
+
+    private static Runnable slow(CountDownLatch started, CountDownLatch interrupted) {
+        return () -> {
+            started.countDown();
+            try {
+                Thread.sleep(Duration.ofMinutes(1));
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        };
+    }
+}
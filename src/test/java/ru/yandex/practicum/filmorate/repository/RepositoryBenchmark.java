@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.SyntheticData;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+    @Param({"10000"})
+    int films;
+
+    @Param({"10000"})
+    int users;
+
+    @Param({"20"})
+    int likesPerUser;
+
+    @Param({"1.0"})
+    double likesSkew;
+
+    @Param({"20"})
+    int friendsPerUser;
+
+    @Param({"true", "false"})
+    boolean popularIndex;
+
+    private ConfigurableApplicationContext context;
+    private FilmRepository filmRepository;
+    private UserRepository userRepository;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RepositoryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--filmorate.popular.index.enabled=" + popularIndex,
+                        "--logging.level.root=WARN");
+        new SyntheticData(42, users, films, likesPerUser, likesSkew, friendsPerUser).writeTo(context);
+        filmRepository = context.getBean(FilmRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Film> getPopular() {
+        return filmRepository.getPopular(10);
+    }
+
+    @Benchmark
+    public List<Film> getPopularByGenre() {
+        return filmRepository.getPopular(10, 1 + ThreadLocalRandom.current().nextInt(6), null);
+    }
+
+    @Benchmark
+    public Film findById() {
+        return filmRepository.findById(1 + ThreadLocalRandom.current().nextInt(films));
+    }
+
+    @Benchmark
+    public List<User> findCommonFriends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return userRepository.findCommonFriends(1 + random.nextInt(users), 1 + random.nextInt(users));
+    }
+}
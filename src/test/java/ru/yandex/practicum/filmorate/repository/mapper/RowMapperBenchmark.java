@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.repository.mapper;
+
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMapperBenchmark {
+    @Param({"1000"})
+    int rows;
+
+    private final FilmRowMapper filmRowMapper = new FilmRowMapper();
+    private final UserRowMapper userRowMapper = new UserRowMapper();
+    private SimpleResultSet films;
+    private SimpleResultSet users;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RowMapperBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        films = new SimpleResultSet();
+        films.setAutoClose(false);
+        films.addColumn("film_id", Types.BIGINT, 19, 0);
+        films.addColumn("name", Types.VARCHAR, 50, 0);
+        films.addColumn("description", Types.VARCHAR, 200, 0);
+        films.addColumn("release_date", Types.DATE, 10, 0);
+        films.addColumn("duration", Types.INTEGER, 10, 0);
+        films.addColumn("mpa_id", Types.INTEGER, 10, 0);
+        films.addColumn("mpa", Types.VARCHAR, 9, 0);
+        films.addColumn("version", Types.BIGINT, 19, 0);
+        users = new SimpleResultSet();
+        users.setAutoClose(false);
+        users.addColumn("user_id", Types.BIGINT, 19, 0);
+        users.addColumn("username", Types.VARCHAR, 20, 0);
+        users.addColumn("email", Types.VARCHAR, 33, 0);
+        users.addColumn("login", Types.VARCHAR, 20, 0);
+        users.addColumn("birthday", Types.DATE, 10, 0);
+        users.addColumn("version", Types.BIGINT, 19, 0);
+        Date date = Date.valueOf(LocalDate.of(2000, 1, 1));
+        for (long id = 1; id <= rows; id++) {
+            films.addRow(id, "Фильм " + id, "Описание фильма " + id, date, 90, 1, "G", 0L);
+            users.addRow(id, "User " + id, "user" + id + "@ya.ru", "login" + id, date, 0L);
+        }
+    }
+
+    @Benchmark
+    public void mapFilms(Blackhole blackhole) throws SQLException {
+        films.beforeFirst();
+        while (films.next()) {
+            blackhole.consume(filmRowMapper.mapRow(films, films.getRow()));
+        }
+    }
+
+    @Benchmark
+    public void mapUsers(Blackhole blackhole) throws SQLException {
+        users.beforeFirst();
+        while (users.next()) {
+            blackhole.consume(userRowMapper.mapRow(users, users.getRow()));
+        }
+    }
+}